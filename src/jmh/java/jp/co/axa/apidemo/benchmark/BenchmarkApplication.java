@@ -0,0 +1,53 @@
+package jp.co.axa.apidemo.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import jp.co.axa.apidemo.ApiDemoApplication;
+import jp.co.axa.apidemo.model.EmployeeDto;
+
+/**
+ * This class starts the application for the benchmarks, on a random port and
+ * against its own embedded H2 database. Swagger needs the servlet context, so
+ * the web server is started even though the benchmarks call the beans.
+ */
+final class BenchmarkApplication {
+
+	private BenchmarkApplication() {
+	}
+
+	/**
+	 * Start the application context.
+	 *
+	 * @param databaseName the name of the in-memory database
+	 * @param arguments    additional command line arguments
+	 * @return the context
+	 */
+	static ConfigurableApplicationContext start(String databaseName, String... arguments) {
+		List<String> args = new ArrayList<>(Arrays.asList("--server.port=0",
+				"--spring.main.banner-mode=off",
+				"--logging.level.root=WARN",
+				"--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1"));
+		args.addAll(Arrays.asList(arguments));
+		return new SpringApplicationBuilder(ApiDemoApplication.class).run(args.toArray(new String[0]));
+	}
+
+	/**
+	 * Build the n-th sample employee.
+	 *
+	 * @param index the index
+	 * @return the employee
+	 */
+	static EmployeeDto employee(int index) {
+		return EmployeeDto.builder()
+				.name("Employee " + index)
+				.salary(new BigDecimal(100 + index % 900).movePointLeft(2))
+				.department("D" + index % 5)
+				.build();
+	}
+}
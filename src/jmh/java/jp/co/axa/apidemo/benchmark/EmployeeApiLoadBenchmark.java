@@ -0,0 +1,114 @@
+package jp.co.axa.apidemo.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import jp.co.axa.apidemo.services.EmployeeService;
+
+/**
+ * Load test of the read APIs over HTTP by 16 concurrent clients, once with the
+ * default configuration and once with the {@code perf} profile, so the
+ * throughput before and after the pool and JPA tuning can be compared.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class EmployeeApiLoadBenchmark {
+
+	private static final String AUTHORIZATION = "Basic "
+			+ Base64.getEncoder().encodeToString("axa:axa".getBytes(StandardCharsets.UTF_8));
+
+	private static final int PAGE_SIZE = 50;
+
+	@Param({ "default", "perf" })
+	private String profile;
+
+	@Param({ "10000" })
+	private int employees;
+
+	private ConfigurableApplicationContext context;
+
+	private String baseUrl;
+
+	private long firstId;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		// Keep one connection per client thread alive between requests
+		System.setProperty("http.maxConnections", "64");
+		context = BenchmarkApplication.start("load", "--spring.profiles.active=" + profile);
+		baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1";
+		firstId = context.getBean(EmployeeService.class)
+				.saveEmployees(IntStream.range(0, employees).mapToObj(BenchmarkApplication::employee).iterator())
+				.getRows().get(0).getId();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int getEmployee() throws IOException {
+		return get("/employees/" + (firstId + ThreadLocalRandom.current().nextInt(employees)));
+	}
+
+	@Benchmark
+	public int getEmployeePage() throws IOException {
+		return get("/employees?limit=" + PAGE_SIZE + "&after="
+				+ (firstId + ThreadLocalRandom.current().nextInt(employees - PAGE_SIZE)));
+	}
+
+	@Benchmark
+	public int searchEmployees() throws IOException {
+		return get("/employees/search?department=D" + ThreadLocalRandom.current().nextInt(5) + "&limit="
+				+ PAGE_SIZE);
+	}
+
+	/**
+	 * Sends the request and reads the whole body, so the connection is reused.
+	 */
+	private int get(String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+		connection.setRequestProperty("Authorization", AUTHORIZATION);
+		int status = connection.getResponseCode();
+		int read = 0;
+		byte[] buffer = new byte[8192];
+		try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			for (int n; body != null && (n = body.read(buffer)) > 0;) {
+				read += n;
+			}
+		}
+		if (status != 200) {
+			throw new IllegalStateException("GET " + path + " answered " + status);
+		}
+		return read;
+	}
+}
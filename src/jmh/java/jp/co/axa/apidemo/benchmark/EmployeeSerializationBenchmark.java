@@ -0,0 +1,155 @@
+package jp.co.axa.apidemo.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+
+import jp.co.axa.apidemo.model.EmployeeDto;
+
+/**
+ * Benchmarks of the serialization of employee lists in JSON and in the binary
+ * formats, as a whole response body, as the streamed export writes it and as
+ * the bulk import reads it. The list benchmarks also report the encoded bytes
+ * they went through per second, so bytes and CPU can be compared: divided by
+ * the score it gives the size of the list.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmployeeSerializationBenchmark {
+
+	@Param({ "1", "1000", "100000" })
+	private int employees;
+
+	@Param({ "json", "cbor", "smile" })
+	private String format;
+
+	private ObjectMapper objectMapper;
+
+	private ObjectWriter listWriter;
+
+	private ObjectReader listReader;
+
+	private List<EmployeeDto> employeeDtos;
+
+	private byte[] encodedList;
+
+	@Setup
+	public void setUp() throws IOException {
+		objectMapper = objectMapper(format);
+		JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, EmployeeDto.class);
+		listWriter = objectMapper.writerFor(listType);
+		listReader = objectMapper.readerFor(listType);
+		employeeDtos = IntStream.range(0, employees).mapToObj(index -> {
+			EmployeeDto employeeDto = BenchmarkApplication.employee(index);
+			employeeDto.setId((long) index + 1);
+			employeeDto.setVersion(0L);
+			return employeeDto;
+		}).collect(Collectors.toList());
+		encodedList = listWriter.writeValueAsBytes(employeeDtos);
+	}
+
+	@Benchmark
+	public byte[] writeList(EncodedBytes encodedBytes) throws IOException {
+		byte[] encoded = listWriter.writeValueAsBytes(employeeDtos);
+		encodedBytes.bytes += encoded.length;
+		return encoded;
+	}
+
+	@Benchmark
+	public List<EmployeeDto> readList(EncodedBytes encodedBytes) throws IOException {
+		encodedBytes.bytes += encodedList.length;
+		return listReader.readValue(encodedList);
+	}
+
+	@Benchmark
+	public void writeStream(Blackhole blackhole) throws IOException {
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(new BlackholeOutputStream(blackhole))) {
+			generator.writeStartArray();
+			for (EmployeeDto employeeDto : employeeDtos) {
+				generator.writeObject(employeeDto);
+			}
+			generator.writeEndArray();
+		}
+	}
+
+	/**
+	 * Builds the object mapper of the format with the modules of the application,
+	 * the DTOs need the parameter names module to be read.
+	 */
+	private static ObjectMapper objectMapper(String format) {
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json().modules(new ParameterNamesModule());
+		switch (format) {
+		case "cbor":
+			return builder.factory(new CBORFactory()).build();
+		case "smile":
+			return builder.factory(new SmileFactory()).build();
+		default:
+			return builder.build();
+		}
+	}
+
+	/**
+	 * Encoded bytes written or read, reported by JMH as a secondary result at the
+	 * same rate as the score. JMH resets the counter at every iteration.
+	 */
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class EncodedBytes {
+
+		public long bytes;
+	}
+
+	/**
+	 * Output stream that hands every byte to the blackhole instead of a socket.
+	 */
+	private static final class BlackholeOutputStream extends OutputStream {
+
+		private final Blackhole blackhole;
+
+		BlackholeOutputStream(Blackhole blackhole) {
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void write(int b) {
+			blackhole.consume(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			blackhole.consume(b);
+			blackhole.consume(len);
+		}
+	}
+}
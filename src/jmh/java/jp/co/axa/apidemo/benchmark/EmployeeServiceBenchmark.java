@@ -0,0 +1,100 @@
+package jp.co.axa.apidemo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.services.EmployeeService;
+
+/**
+ * Benchmarks of the employee service hot paths against the embedded H2
+ * database, with 1, 1000 and 100000 employees stored.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmployeeServiceBenchmark {
+
+	/** Ids read by the cache hit benchmark, kept below the cache size bound. */
+	private static final int HOT_EMPLOYEES = 1000;
+
+	@Param({ "1", "1000", "100000" })
+	private int employees;
+
+	private ConfigurableApplicationContext context;
+
+	private EmployeeService employeeService;
+
+	private Cache employeeCache;
+
+	private long[] employeeIds;
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start("bench");
+		employeeService = context.getBean(EmployeeService.class);
+		employeeCache = context.getBean(CacheManager.class).getCache("employee");
+		employeeIds = employeeService
+				.saveEmployees(IntStream.range(0, employees).mapToObj(BenchmarkApplication::employee).iterator())
+				.getRows().stream().mapToLong(row -> row.getId()).toArray();
+		for (int i = 0; i < Math.min(employees, HOT_EMPLOYEES); i++) {
+			employeeService.getEmployee(employeeIds[i]);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<EmployeeDto> retrieveEmployees() {
+		return employeeService.retrieveEmployees();
+	}
+
+	@Benchmark
+	public EmployeeDto getEmployeeCacheHit() {
+		return employeeService.getEmployee(employeeIds[next++ % Math.min(employees, HOT_EMPLOYEES)]);
+	}
+
+	@Benchmark
+	public EmployeeDto getEmployeeCacheMiss() {
+		long employeeId = employeeIds[next++ % employees];
+		employeeCache.evict(employeeId);
+		return employeeService.getEmployee(employeeId);
+	}
+
+	@Benchmark
+	public EmployeeDto saveEmployee() {
+		return employeeService.saveEmployee(BenchmarkApplication.employee(next++));
+	}
+
+	@Benchmark
+	public EmployeeDto updateEmployee() {
+		int index = next++;
+		return employeeService.updateEmployee(BenchmarkApplication.employee(index), employeeIds[index % employees]);
+	}
+}
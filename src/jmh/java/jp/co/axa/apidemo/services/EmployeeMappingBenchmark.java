@@ -0,0 +1,67 @@
+package jp.co.axa.apidemo.services;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.model.EmployeeDto;
+
+/**
+ * Benchmarks of the mapping between the employee entity and its DTO, for lists
+ * of 1, 1000 and 100000 employees. It lives in the service package to reach
+ * the package-private converters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmployeeMappingBenchmark {
+
+	@Param({ "1", "1000", "100000" })
+	private int employees;
+
+	private EmployeeServiceImpl employeeService;
+
+	private List<Employee> employeeEntities;
+
+	private List<EmployeeDto> employeeDtos;
+
+	@Setup
+	public void setUp() {
+		employeeService = new EmployeeServiceImpl();
+		employeeEntities = IntStream.range(0, employees)
+				.mapToObj(index -> Employee.builder().id((long) index + 1).name("Employee " + index)
+						.salary(new BigDecimal(100 + index % 900).movePointLeft(2)).department("D" + index % 5)
+						.version(0L).build())
+				.collect(Collectors.toList());
+		employeeDtos = employeeEntities.stream().map(employeeService::convertToEmployeeDto)
+				.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<EmployeeDto> convertToEmployeeDto() {
+		return employeeEntities.stream().map(employeeService::convertToEmployeeDto).collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<Employee> convertToEmployeeEntity() {
+		return employeeDtos.stream().map(employeeService::convertToEmployeeEntity).collect(Collectors.toList());
+	}
+}
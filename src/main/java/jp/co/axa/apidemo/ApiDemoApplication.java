@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
 import org.springframework.context.support.ReloadableResourceBundleMessageSource;
 
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
@@ -15,7 +16,8 @@ import springfox.documentation.swagger2.annotations.EnableSwagger2;
  */
 @EnableSwagger2
 @SpringBootApplication
-@EnableCaching
+// Apply the cache before the transactions, so a cache hit never opens a transaction
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
 public class ApiDemoApplication {
 
 	public static void main(String[] args) {
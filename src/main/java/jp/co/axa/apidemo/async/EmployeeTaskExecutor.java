@@ -0,0 +1,131 @@
+package jp.co.axa.apidemo.async;
+
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded executor running the employee service calls of the asynchronous
+ * APIs. It has as many threads as the connection pool has connections, since
+ * more threads would only wait for a connection, and a bounded queue. When the
+ * queue is full the task is rejected right away instead of piling up.
+ */
+@Slf4j
+@Component
+public class EmployeeTaskExecutor {
+
+	private static final int DEFAULT_POOL_SIZE = 10;
+
+	/** Number of threads, 0 to use the connection pool size. */
+	@Value("${employee.async.pool-size:0}")
+	private int poolSize;
+
+	@Value("${employee.async.queue-capacity:100}")
+	private int queueCapacity;
+
+	@Autowired
+	private ObjectProvider<DataSource> dataSource;
+
+	@Autowired
+	private ObjectProvider<MeterRegistry> meterRegistry;
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private ThreadPoolExecutor executor;
+
+	@PostConstruct
+	public void start() {
+		int threads = poolSize > 0 ? poolSize : connectionPoolSize();
+		executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("employee-async-"),
+				(task, pool) -> {
+					rejectedCount.incrementAndGet();
+					throw new RejectedExecutionException("Employee executor is saturated");
+				});
+		MeterRegistry registry = meterRegistry.getIfAvailable();
+		if (registry != null) {
+			new ExecutorServiceMetrics(executor, "employee.async", Tags.empty()).bindTo(registry);
+			registry.more().counter("employee.async.rejected", Tags.empty(), rejectedCount);
+		}
+		log.info("Employee executor started with {} threads and a queue of {}", threads, queueCapacity);
+	}
+
+	/**
+	 * Runs the task on the executor, as the user who submitted it and within the
+	 * same request, so the task reads as the same client. A failing task
+	 * completes the future with its own exception, not wrapped in a
+	 * {@code CompletionException}, so the MVC exception handlers see it as thrown
+	 * by the task.
+	 *
+	 * @param task the task
+	 * @return the future result of the task
+	 * @throws RejectedExecutionException if the executor is saturated
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		executor.execute(new DelegatingSecurityContextRunnable(() -> {
+			RequestContextHolder.setRequestAttributes(requestAttributes);
+			try {
+				future.complete(task.get());
+			} catch (RuntimeException | Error exception) {
+				future.completeExceptionally(exception);
+			} finally {
+				RequestContextHolder.resetRequestAttributes();
+			}
+		}));
+		return future;
+	}
+
+	/**
+	 * Returns the number of tasks rejected so far.
+	 *
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	private int connectionPoolSize() {
+		DataSource source = dataSource.getIfAvailable();
+		try {
+			// a routing data source unwraps to the primary pool
+			if (source != null && source.isWrapperFor(HikariDataSource.class)) {
+				return source.unwrap(HikariDataSource.class).getMaximumPoolSize();
+			}
+		} catch (SQLException ex) {
+			log.warn("Connection pool size unknown: {}", ex.toString());
+		}
+		return DEFAULT_POOL_SIZE;
+	}
+}
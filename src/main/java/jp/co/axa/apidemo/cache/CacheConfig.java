@@ -0,0 +1,106 @@
+package jp.co.axa.apidemo.cache;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Cache configuration. Each cache has its own Caffeine spec, so the employees
+ * found missing can expire much sooner than the employees themselves. The
+ * employee cache loads a missing employee once for all concurrent requests and
+ * refreshes hot employees ahead of their expiry on a few threads of its own, so
+ * the refreshes never take a slot of the asynchronous API calls. A refresh that
+ * does not fit in their queue is skipped, the next hit asks for it again.
+ */
+@Configuration
+public class CacheConfig {
+
+	/** Employees by id. */
+	public static final String EMPLOYEE = "employee";
+
+	/** Ids recently found missing, so repeated misses skip the database. */
+	public static final String MISSING_EMPLOYEE = "missingEmployee";
+
+	@Value("${employee.cache.spec:maximumSize=10000,expireAfterWrite=10m,recordStats}")
+	private String employeeSpec;
+
+	@Value("${employee.cache.missing-spec:maximumSize=10000,expireAfterWrite=5s,recordStats}")
+	private String missingEmployeeSpec;
+
+	/** Age after which a cached employee is reloaded on its next hit, 0 to disable. */
+	@Value("${employee.cache.refresh-ahead:8m}")
+	private Duration refreshAhead;
+
+	@Value("${employee.cache.refresh-threads:2}")
+	private int refreshThreads;
+
+	/** Refreshes waiting for a thread beyond which further ones are skipped. */
+	private static final int REFRESH_QUEUE_CAPACITY = 100;
+
+	private ThreadPoolExecutor refreshExecutor;
+
+	@PreDestroy
+	public void shutdown() {
+		if (refreshExecutor != null) {
+			refreshExecutor.shutdownNow();
+		}
+	}
+
+	@Bean
+	public CacheManager cacheManager() {
+		SimpleCacheManager cacheManager = new SimpleCacheManager();
+		cacheManager.setCaches(Arrays.asList(employeeCache(), caffeineCache(MISSING_EMPLOYEE, missingEmployeeSpec)));
+		return cacheManager;
+	}
+
+	/**
+	 * Publishes the coalesced loads and the refreshes ahead of expiry of the
+	 * employee cache as {@code cache.loads.coalesced} and
+	 * {@code cache.refreshes}.
+	 *
+	 * @param cacheManager the cache manager
+	 * @return the meter binder
+	 */
+	@Bean
+	public MeterBinder employeeCacheLoadMetrics(CacheManager cacheManager) {
+		SingleFlightCaffeineCache cache = (SingleFlightCaffeineCache) cacheManager.getCache(EMPLOYEE);
+		return registry -> {
+			FunctionCounter.builder("cache.loads.coalesced", cache, SingleFlightCaffeineCache::getCoalescedCount)
+					.tag("cache", EMPLOYEE).description("Cache misses served by the load of a concurrent miss")
+					.register(registry);
+			FunctionCounter.builder("cache.refreshes", cache, SingleFlightCaffeineCache::getRefreshCount)
+					.tag("cache", EMPLOYEE).description("Cache entries reloaded ahead of their expiry")
+					.register(registry);
+		};
+	}
+
+	private SingleFlightCaffeineCache employeeCache() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("employee-cache-refresh-");
+		threadFactory.setDaemon(true);
+		refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY), threadFactory);
+		return new SingleFlightCaffeineCache(EMPLOYEE, Caffeine.from(employeeSpec).build(), refreshAhead,
+				refreshExecutor);
+	}
+
+	private static CaffeineCache caffeineCache(String name, String spec) {
+		return new CaffeineCache(name, Caffeine.from(spec).build());
+	}
+}
@@ -0,0 +1,146 @@
+package jp.co.axa.apidemo.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import jp.co.axa.apidemo.model.EmployeeSearchCriteria;
+import jp.co.axa.apidemo.services.DepartmentService;
+import jp.co.axa.apidemo.services.EmployeeService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Warms the application up on startup. The ids of the hottest cached employees
+ * are saved to {@code employee.warmup.file} on shutdown, and preloaded into the
+ * cache on the next start before the representative queries are run once. The
+ * application reports itself out of service until this is done.
+ */
+@Slf4j
+@Component
+public class EmployeeCacheWarmer implements ApplicationRunner {
+
+	/** File keeping the hottest employee ids across restarts, empty to disable. */
+	@Value("${employee.warmup.file:}")
+	private String hotEmployeesFile;
+
+	/** Number of hottest employees saved and preloaded. */
+	@Value("${employee.warmup.size:1000}")
+	private int warmUpSize;
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private DepartmentService departmentService;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private volatile boolean warm;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		long startTime = System.nanoTime();
+		try {
+			int preloaded = employeeService.preloadEmployees(readHotEmployeeIds());
+			runRepresentativeQueries();
+			log.info("Warmed up with {} preloaded employees in {} ms", preloaded,
+					(System.nanoTime() - startTime) / 1_000_000);
+		} catch (RuntimeException exception) {
+			log.warn("Warm-up failed, starting with a cold cache", exception);
+		} finally {
+			warm = true;
+		}
+	}
+
+	/**
+	 * Tells whether the warm-up is over.
+	 *
+	 * @return true once the application is warm
+	 */
+	public boolean isWarm() {
+		return warm;
+	}
+
+	/**
+	 * Saves the ids of the hottest cached employees, hottest first.
+	 */
+	@PreDestroy
+	public void saveHotEmployeeIds() {
+		Path file = hotEmployeesFile();
+		if (file == null) {
+			return;
+		}
+		List<String> lines = hottestEmployeeIds().stream().map(String::valueOf).collect(Collectors.toList());
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			Files.write(file, lines, StandardCharsets.UTF_8);
+			log.info("Saved {} hot employee ids to {}", lines.size(), file);
+		} catch (IOException exception) {
+			log.warn("Could not save the hot employee ids to {}", file, exception);
+		}
+	}
+
+	private List<Long> readHotEmployeeIds() {
+		Path file = hotEmployeesFile();
+		if (file == null || !Files.isReadable(file)) {
+			return Collections.emptyList();
+		}
+		try {
+			return Files.readAllLines(file, StandardCharsets.UTF_8).stream().map(String::trim)
+					.filter(line -> !line.isEmpty()).limit(warmUpSize).map(Long::valueOf)
+					.collect(Collectors.toList());
+		} catch (IOException | NumberFormatException exception) {
+			log.warn("Could not read the hot employee ids from {}", file, exception);
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Runs each kind of read query once, so their plans are cached and the
+	 * database pages they touch are loaded.
+	 */
+	private void runRepresentativeQueries() {
+		employeeService.retrieveEmployees(0L, 100);
+		EmployeeSearchCriteria criteria = new EmployeeSearchCriteria();
+		criteria.setName("A");
+		employeeService.searchEmployees(criteria, 0L, 100);
+		departmentService.retrieveDepartmentStats();
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Long> hottestEmployeeIds() {
+		Cache cache = cacheManager.getCache(CacheConfig.EMPLOYEE);
+		if (cache == null || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache)) {
+			return Collections.emptyList();
+		}
+		com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = //
+				(com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache();
+		Map<Object, Object> hottest = nativeCache.policy().eviction()
+				.map(eviction -> eviction.hottest(warmUpSize)).orElseGet(nativeCache::asMap);
+		return hottest.keySet().stream().filter(Long.class::isInstance).map(Long.class::cast).limit(warmUpSize)
+				.collect(Collectors.toList());
+	}
+
+	private Path hotEmployeesFile() {
+		return hotEmployeesFile.isEmpty() ? null : Paths.get(hotEmployeesFile);
+	}
+}
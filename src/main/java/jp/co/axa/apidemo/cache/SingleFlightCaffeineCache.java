@@ -0,0 +1,124 @@
+package jp.co.axa.apidemo.cache;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caffeine cache loading each missing key once for all the concurrent callers
+ * of {@code @Cacheable(sync = true)}: Caffeine runs one load per key and the
+ * other callers wait for its value, they are counted as coalesced. An entry
+ * older than the refresh-ahead age is reloaded in the background by the next
+ * hit, which still gets the cached value, so a hot entry is replaced before it
+ * expires instead of being missed by every concurrent caller.
+ */
+@Slf4j
+public class SingleFlightCaffeineCache extends CaffeineCache {
+
+	private final Cache<Object, Object> cache;
+
+	/** Age after which a hit reloads the entry, zero to disable. */
+	private final long refreshAheadNanos;
+
+	private final Executor refreshExecutor;
+
+	private final Set<Object> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder coalescedCount = new LongAdder();
+
+	private final LongAdder refreshCount = new LongAdder();
+
+	public SingleFlightCaffeineCache(String name, Cache<Object, Object> cache, Duration refreshAhead,
+			Executor refreshExecutor) {
+		super(name, cache);
+		this.cache = cache;
+		this.refreshAheadNanos = cache.policy().expireAfterWrite().isPresent() ? refreshAhead.toNanos() : 0;
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	@Override
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		Object cached = cache.getIfPresent(key);
+		if (cached != null) {
+			refreshAheadIfDue(key, cached, valueLoader);
+			return fromCachedValue(cached);
+		}
+		boolean[] loaded = { false };
+		T value = super.get(key, () -> {
+			loaded[0] = true;
+			return valueLoader.call();
+		});
+		if (!loaded[0]) {
+			coalescedCount.increment();
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the number of loads saved by waiting for the load of another
+	 * caller.
+	 *
+	 * @return the coalesced count
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.sum();
+	}
+
+	/**
+	 * Returns the number of entries reloaded ahead of their expiry.
+	 *
+	 * @return the refresh count
+	 */
+	public long getRefreshCount() {
+		return refreshCount.sum();
+	}
+
+	/**
+	 * Reloads the entry in the background once it is old enough. The new value
+	 * only replaces the entry read here, so an entry updated or evicted in the
+	 * meantime is left alone, and a failing reload drops it.
+	 */
+	private void refreshAheadIfDue(Object key, Object cached, Callable<?> valueLoader) {
+		if (refreshAheadNanos <= 0 || !isRefreshDue(key) || !refreshingKeys.add(key)) {
+			return;
+		}
+		try {
+			refreshExecutor.execute(() -> {
+				try {
+					cache.asMap().replace(key, cached, toStoreValue(valueLoader.call()));
+					refreshCount.increment();
+				} catch (Exception exception) {
+					log.debug("Refresh of {} in cache {} failed", key, getName(), exception);
+					cache.asMap().remove(key, cached);
+				} finally {
+					refreshingKeys.remove(key);
+				}
+			});
+		} catch (RejectedExecutionException exception) {
+			refreshingKeys.remove(key);
+		}
+	}
+
+	private boolean isRefreshDue(Object key) {
+		OptionalLong age = cache.policy().expireAfterWrite()
+				.map(expiration -> expiration.ageOf(key, TimeUnit.NANOSECONDS)).orElse(OptionalLong.empty());
+		return age.isPresent() && age.getAsLong() >= refreshAheadNanos;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T fromCachedValue(Object cached) {
+		return (T) fromStoreValue(cached);
+	}
+}
@@ -0,0 +1,22 @@
+package jp.co.axa.apidemo.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the application out of service, and so {@code /actuator/health} as
+ * 503, until the startup warm-up is over.
+ */
+@Component
+public class WarmUpHealthIndicator implements HealthIndicator {
+
+	@Autowired
+	private EmployeeCacheWarmer employeeCacheWarmer;
+
+	@Override
+	public Health health() {
+		return employeeCacheWarmer.isWarm() ? Health.up().build() : Health.outOfService().build();
+	}
+}
@@ -0,0 +1,29 @@
+package jp.co.axa.apidemo.changes;
+
+import jp.co.axa.apidemo.model.EmployeeChange;
+
+/**
+ * Receives the employee changes in sequence order. The sequence follows the
+ * commits, which concurrent writes of one employee can reach in another order
+ * than their versions: a listener keeping employees compares the versions. A
+ * listener throwing an exception is unsubscribed.
+ */
+public interface EmployeeChangeListener {
+
+	/**
+	 * Called for every change after the subscription point.
+	 *
+	 * @param change the change
+	 */
+	void onChange(EmployeeChange change);
+
+	/**
+	 * Called instead of the missed changes when they are no longer in the log.
+	 * The listener should reload a snapshot of the employees, the changes
+	 * following the given sequence are delivered next and can be applied over it.
+	 *
+	 * @param sequence the sequence the listener resumes from
+	 */
+	default void onReset(long sequence) {
+	}
+}
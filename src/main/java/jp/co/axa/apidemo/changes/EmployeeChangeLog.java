@@ -0,0 +1,302 @@
+package jp.co.axa.apidemo.changes;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jp.co.axa.apidemo.exception.ServiceOverloadedException;
+import jp.co.axa.apidemo.model.EmployeeChange;
+import jp.co.axa.apidemo.model.EmployeeChange.ChangeType;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process log of the committed employee changes. The last
+ * {@code employee.changes.capacity} changes are kept in a ring buffer so a
+ * consumer can resume after the last sequence it has seen. Each listener has
+ * its own queue of at most {@code employee.changes.subscriber-capacity}
+ * changes, delivered in sequence order by one task at a time, so a slow
+ * listener only delays itself. A listener that falls further behind has its
+ * queued changes replaced by a reset. At most
+ * {@code employee.changes.max-subscribers} listeners are subscribed at once,
+ * and the deliveries run on as many threads at most. A replay is queued when subscribing, so
+ * it can neither miss nor reorder a concurrent change. The sequence restarts
+ * from 0 with the application, so sequences are only meaningful along with the
+ * epoch of the run that issued them.
+ */
+@Slf4j
+@Component
+public class EmployeeChangeLog {
+
+	/** Sequence of a subscription that has no reset to deliver. */
+	private static final long NO_RESET = -1;
+
+	/** Identifies this run of the application, its sequences restart from 0. */
+	private final long epoch = System.currentTimeMillis();
+
+	@Value("${employee.changes.capacity:10000}")
+	private int capacity;
+
+	@Value("${employee.changes.subscriber-capacity:10000}")
+	private int subscriberCapacity;
+
+	@Value("${employee.changes.max-subscribers:256}")
+	private int maxSubscribers;
+
+	private EmployeeChange[] changes;
+
+	private long lastSequence;
+
+	/** Sequence of the last reset, no change before it can be replayed. */
+	private long resetSequence;
+
+	/** Guarded by this log. */
+	private final List<Subscription> subscriptions = new ArrayList<>();
+
+	/**
+	 * Runs the deliveries, a subscription has at most one task queued or running,
+	 * so the queue is bounded by the number of subscriptions.
+	 */
+	private ThreadPoolExecutor deliveryExecutor;
+
+	@PostConstruct
+	public void start() {
+		changes = new EmployeeChange[capacity];
+		deliveryExecutor = new ThreadPoolExecutor(maxSubscribers, maxSubscribers, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), new CustomizableThreadFactory("employee-changes-"));
+		deliveryExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		deliveryExecutor.shutdown();
+	}
+
+	/**
+	 * Records a change and notifies the listeners. Within a transaction the change
+	 * is only recorded once the transaction is committed, and dropped if it rolls
+	 * back.
+	 *
+	 * @param type       the change type
+	 * @param employeeId the employee id
+	 * @param employee   the employee after the change, with its new version; null
+	 *                   for a delete
+	 */
+	public void append(ChangeType type, Long employeeId, EmployeeDto employee) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					record(type, employeeId, employee);
+				}
+			});
+		} else {
+			record(type, employeeId, employee);
+		}
+	}
+
+	/**
+	 * Drops the retained changes and resets every listener, for a change of the
+	 * employees that is not recorded change by change, such as a snapshot restore.
+	 */
+	public synchronized void reset() {
+		Arrays.fill(changes, null);
+		resetSequence = lastSequence;
+		subscriptions.forEach(subscription -> subscription.reset(lastSequence));
+	}
+
+	/**
+	 * Returns the epoch of this run of the application, which the sequences
+	 * belong to.
+	 *
+	 * @return the epoch, never 0
+	 */
+	public long getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Returns the sequence of the last change.
+	 *
+	 * @return the sequence, 0 when nothing changed yet
+	 */
+	public synchronized long getLastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * Subscribes to the changes made from now on.
+	 *
+	 * @param listener the listener
+	 */
+	public synchronized void subscribe(EmployeeChangeListener listener) {
+		subscribe(lastSequence, listener);
+	}
+
+	/**
+	 * Subscribes to the changes following the given sequence. The retained changes
+	 * are replayed first, a sequence no longer retained or not known by this log
+	 * resets the listener to the last sequence instead.
+	 *
+	 * @param after    the last sequence seen by the listener
+	 * @param listener the listener
+	 * @throws ServiceOverloadedException if there are already
+	 *                                    {@code employee.changes.max-subscribers}
+	 *                                    listeners
+	 */
+	public synchronized void subscribe(long after, EmployeeChangeListener listener) {
+		if (subscriptions.size() >= maxSubscribers) {
+			throw new ServiceOverloadedException("Too many employee change listeners");
+		}
+		Subscription subscription = new Subscription(listener);
+		List<EmployeeChange> replay = changesAfter(after);
+		if (replay == null || replay.size() > subscriberCapacity) {
+			subscription.reset(lastSequence);
+		} else {
+			replay.forEach(subscription::offer);
+		}
+		subscriptions.add(subscription);
+	}
+
+	/**
+	 * Subscribes to the changes following the given sequence of the given epoch. A
+	 * sequence of another epoch, issued before a restart, resets the listener to
+	 * the last sequence.
+	 *
+	 * @param epoch    the epoch of the sequence, 0 when unknown
+	 * @param after    the last sequence seen by the listener
+	 * @param listener the listener
+	 */
+	public synchronized void subscribe(long epoch, long after, EmployeeChangeListener listener) {
+		subscribe(epoch == this.epoch ? after : Long.MAX_VALUE, listener);
+	}
+
+	/**
+	 * Unsubscribes the listener. The changes already queued for it are still
+	 * delivered.
+	 *
+	 * @param listener the listener
+	 */
+	public synchronized void unsubscribe(EmployeeChangeListener listener) {
+		subscriptions.removeIf(subscription -> subscription.listener == listener);
+	}
+
+	private synchronized void record(ChangeType type, Long employeeId, EmployeeDto employee) {
+		EmployeeChange change = new EmployeeChange(++lastSequence, type, employeeId,
+				employee == null ? null : employee.getVersion(), employee, System.currentTimeMillis());
+		changes[index(change.getSequence())] = change;
+		subscriptions.forEach(subscription -> subscription.offer(change));
+	}
+
+	/**
+	 * Returns the changes after the given sequence, or null when some of them are
+	 * not retained.
+	 */
+	private List<EmployeeChange> changesAfter(long after) {
+		if (after > lastSequence || after < lastSequence - capacity || after < resetSequence) {
+			return null;
+		}
+		List<EmployeeChange> result = new ArrayList<>((int) (lastSequence - after));
+		for (long sequence = after + 1; sequence <= lastSequence; sequence++) {
+			result.add(changes[index(sequence)]);
+		}
+		return result;
+	}
+
+	private int index(long sequence) {
+		return (int) ((sequence - 1) % capacity);
+	}
+
+	/**
+	 * Changes waiting to be delivered to one listener. A reset replaces the
+	 * changes queued before it and is delivered first.
+	 */
+	private final class Subscription implements Runnable {
+
+		private final EmployeeChangeListener listener;
+
+		/** Guarded by this subscription. */
+		private final Deque<EmployeeChange> pending = new ArrayDeque<>();
+
+		/** Guarded by this subscription. */
+		private long pendingReset = NO_RESET;
+
+		/** Whether a delivery task is queued or running, guarded by this subscription. */
+		private boolean delivering;
+
+		Subscription(EmployeeChangeListener listener) {
+			this.listener = listener;
+		}
+
+		synchronized void offer(EmployeeChange change) {
+			if (pending.size() >= subscriberCapacity) {
+				log.debug("Employee change listener is {} changes behind, resetting it", pending.size());
+				reset(change.getSequence());
+				return;
+			}
+			pending.add(change);
+			deliver();
+		}
+
+		synchronized void reset(long sequence) {
+			pending.clear();
+			pendingReset = sequence;
+			deliver();
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				long reset;
+				EmployeeChange change = null;
+				synchronized (this) {
+					reset = pendingReset;
+					if (reset == NO_RESET && (change = pending.poll()) == null) {
+						delivering = false;
+						return;
+					}
+					pendingReset = NO_RESET;
+				}
+				try {
+					if (reset != NO_RESET) {
+						listener.onReset(reset);
+					} else {
+						listener.onChange(change);
+					}
+				} catch (RuntimeException exception) {
+					log.debug("Employee change listener failed, unsubscribing it", exception);
+					unsubscribe(listener);
+					return;
+				}
+			}
+		}
+
+		/** Starts a delivery task unless one is running, with this subscription locked. */
+		private void deliver() {
+			if (delivering) {
+				return;
+			}
+			try {
+				deliveryExecutor.execute(this);
+				delivering = true;
+			} catch (RejectedExecutionException exception) {
+				log.debug("Employee change log is shut down", exception);
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package jp.co.axa.apidemo.controllers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jp.co.axa.apidemo.model.DepartmentStatsDto;
+import jp.co.axa.apidemo.model.SalaryPercentilesDto;
+import jp.co.axa.apidemo.model.SalaryRangeDto;
+import jp.co.axa.apidemo.services.DepartmentService;
+
+/**
+ * This controller is entry point for department related APIs operations.
+ *
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class DepartmentController {
+
+	@Autowired
+	private DepartmentService departmentService;
+
+	/**
+	 * Returns the headcount and salary aggregates of every department.
+	 *
+	 * @return the department stats
+	 */
+	@GetMapping("/departments/stats")
+	public ResponseEntity<List<DepartmentStatsDto>> getDepartmentStats() {
+		List<DepartmentStatsDto> departmentStats = departmentService.retrieveDepartmentStats();
+		return new ResponseEntity<>(departmentStats, HttpStatus.OK);
+	}
+
+	/**
+	 * Returns the headcount and salary aggregates of one department.
+	 *
+	 * @param department the department
+	 * @return the department stats
+	 */
+	@GetMapping("/departments/{department}/stats")
+	public ResponseEntity<DepartmentStatsDto> getDepartmentStats(
+			@PathVariable(name = "department") String department) {
+		DepartmentStatsDto departmentStats = departmentService.getDepartmentStats(department);
+		return new ResponseEntity<>(departmentStats, HttpStatus.OK);
+	}
+
+	/**
+	 * Returns salary percentiles of one department, for instance
+	 * {@code ?p=50,90,99}.
+	 *
+	 * @param department  the department
+	 * @param percentiles the percentiles, between 0 and 100
+	 * @return the salary percentiles
+	 */
+	@GetMapping("/departments/{department}/salary/percentiles")
+	public ResponseEntity<SalaryPercentilesDto> getSalaryPercentiles(
+			@PathVariable(name = "department") String department,
+			@RequestParam(name = "p", defaultValue = "50,90,99") List<Double> percentiles) {
+		SalaryPercentilesDto salaryPercentiles = departmentService.getSalaryPercentiles(department, percentiles);
+		return new ResponseEntity<>(salaryPercentiles, HttpStatus.OK);
+	}
+
+	/**
+	 * Returns the number of employees of one department with a salary from
+	 * {@code min}, inclusive, to {@code max}, exclusive; either may be left out.
+	 *
+	 * @param department the department
+	 * @param minSalary  the lowest salary
+	 * @param maxSalary  the highest salary
+	 * @return the salary range count
+	 */
+	@GetMapping("/departments/{department}/salary/count")
+	public ResponseEntity<SalaryRangeDto> countSalaries(@PathVariable(name = "department") String department,
+			@RequestParam(name = "min", required = false) BigDecimal minSalary,
+			@RequestParam(name = "max", required = false) BigDecimal maxSalary) {
+		SalaryRangeDto salaryRange = departmentService.countSalaries(department, minSalary, maxSalary);
+		return new ResponseEntity<>(salaryRange, HttpStatus.OK);
+	}
+}
@@ -0,0 +1,124 @@
+package jp.co.axa.apidemo.controllers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jp.co.axa.apidemo.async.EmployeeTaskExecutor;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.services.EmployeeService;
+import jp.co.axa.apidemo.writebehind.EmployeeUpdateQueue;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * This controller is entry point for the asynchronous employee APIs. They
+ * behave like the ones of {@link EmployeeController}, but the service call runs
+ * on the bounded {@link EmployeeTaskExecutor} so no servlet thread waits for
+ * the database. When the executor is saturated the request is answered with
+ * 503 and a Retry-After header. Their writes commit the queued write-behind
+ * update of the employee first.
+ *
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/async")
+public class EmployeeAsyncController {
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private EmployeeTaskExecutor employeeTaskExecutor;
+
+	@Autowired
+	private EmployeeUpdateQueue employeeUpdateQueue;
+
+	/**
+	 * Returns the list of employees.
+	 *
+	 * @return the employees
+	 */
+	@GetMapping("/employees")
+	public CompletableFuture<ResponseEntity<List<EmployeeDto>>> getEmployees() {
+		return employeeTaskExecutor.submit(() -> new ResponseEntity<>(employeeService.retrieveEmployees(), HttpStatus.OK));
+	}
+
+	/**
+	 * Gets the employee by employeeId, with its version as ETag.
+	 *
+	 * @param employeeId the employee id
+	 * @return the employee
+	 */
+	@GetMapping("/employees/{employeeId}")
+	public CompletableFuture<ResponseEntity<EmployeeDto>> getEmployee(
+			@PathVariable(name = "employeeId") Long employeeId) {
+		return employeeTaskExecutor.submit(() -> {
+			EmployeeDto employeeDto = employeeService.getEmployee(employeeId);
+			return employeeDto.getVersion() == null ? ResponseEntity.ok(employeeDto)
+					: ResponseEntity.ok().eTag("\"" + employeeDto.getVersion() + "\"").body(employeeDto);
+		});
+	}
+
+	/**
+	 * Api is use for inserting the employee records.
+	 *
+	 * @param employeeDto the employee dto
+	 * @return the response entity
+	 */
+	@PostMapping("/employees")
+	public CompletableFuture<ResponseEntity<Object>> saveEmployee(@Valid @RequestBody EmployeeDto employeeDto) {
+		return employeeTaskExecutor.submit(() -> {
+			employeeService.saveEmployee(employeeDto);
+			log.info("Employee Saved Successfully");
+			return new ResponseEntity<>(HttpStatus.CREATED);
+		});
+	}
+
+	/**
+	 * Api is use for removing the employee records.
+	 *
+	 * @param employeeId the employee id
+	 * @return the response entity
+	 */
+	@DeleteMapping("/employees/{employeeId}")
+	public CompletableFuture<ResponseEntity<Object>> deleteEmployee(
+			@PathVariable(name = "employeeId") Long employeeId) {
+		return employeeTaskExecutor.submit(() -> {
+			employeeUpdateQueue.drain(employeeId);
+			employeeService.deleteEmployee(employeeId);
+			log.info("Employee Deleted Successfully");
+			return new ResponseEntity<>(HttpStatus.OK);
+		});
+	}
+
+	/**
+	 * Api use for Update employee records.
+	 *
+	 * @param employeeDto the employee dto
+	 * @param employeeId  the employee id
+	 * @return the response entity
+	 */
+	@PutMapping("/employees/{employeeId}")
+	public CompletableFuture<ResponseEntity<Object>> updateEmployee(@RequestBody EmployeeDto employeeDto,
+			@PathVariable(name = "employeeId") Long employeeId) {
+		return employeeTaskExecutor.submit(() -> {
+			employeeUpdateQueue.drain(employeeId);
+			employeeService.updateEmployee(employeeDto, employeeId);
+			log.info("Employee updated Successfully");
+			return new ResponseEntity<>(HttpStatus.OK);
+		});
+	}
+}
@@ -0,0 +1,114 @@
+package jp.co.axa.apidemo.controllers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import jp.co.axa.apidemo.changes.EmployeeChangeListener;
+import jp.co.axa.apidemo.changes.EmployeeChangeLog;
+import jp.co.axa.apidemo.model.EmployeeChange;
+
+/**
+ * This controller is entry point for the employee change feed.
+ *
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class EmployeeChangeController {
+
+	/** Event telling the consumer to reload the employees before applying the next changes. */
+	static final String RESET_EVENT = "reset";
+
+	private static final String EVENT_ID_SEPARATOR = "-";
+
+	/** Time after which a stream is closed, the consumer reconnects with its Last-Event-ID. */
+	@Value("${employee.changes.timeout:300000}")
+	private long timeout;
+
+	@Autowired
+	private EmployeeChangeLog employeeChangeLog;
+
+	/**
+	 * Streams the employee changes as server-sent events, named after the change
+	 * type and identified by the epoch of the running application and their
+	 * sequence, as {@code <epoch>-<sequence>}. A consumer resumes after the id sent
+	 * in {@code Last-Event-ID}, or in {@code after} for the first connection, and
+	 * otherwise only receives the changes made from now on. When the missed
+	 * changes are no longer retained, or the id was issued before a restart, a
+	 * {@code reset} event is sent first: the consumer reloads a snapshot of the
+	 * employees, then applies the following changes over it.
+	 *
+	 * @param lastEventId the last event id seen before a reconnection
+	 * @param after       the last event id seen
+	 * @return the event stream
+	 */
+	@GetMapping(value = "/employees/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamEmployeeChanges(
+			@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+			@RequestParam(name = "after", required = false) String after) {
+		SseEmitter emitter = new SseEmitter(timeout);
+		long epoch = employeeChangeLog.getEpoch();
+		EmployeeChangeListener listener = new EmployeeChangeListener() {
+
+			@Override
+			public void onChange(EmployeeChange change) {
+				send(emitter, SseEmitter.event().id(eventId(epoch, change.getSequence()))
+						.name(change.getType().name().toLowerCase(Locale.ENGLISH))
+						.data(change, MediaType.APPLICATION_JSON));
+			}
+
+			@Override
+			public void onReset(long sequence) {
+				send(emitter, SseEmitter.event().id(eventId(epoch, sequence)).name(RESET_EVENT)
+						.data(Collections.singletonMap("sequence", sequence), MediaType.APPLICATION_JSON));
+			}
+		};
+		emitter.onTimeout(emitter::complete);
+		emitter.onError(error -> employeeChangeLog.unsubscribe(listener));
+		emitter.onCompletion(() -> employeeChangeLog.unsubscribe(listener));
+
+		String resumeAfter = lastEventId != null ? lastEventId : after;
+		if (resumeAfter == null) {
+			employeeChangeLog.subscribe(listener);
+		} else {
+			// an id that cannot be parsed, such as a bare sequence, resets the consumer
+			int separator = resumeAfter.indexOf(EVENT_ID_SEPARATOR);
+			long resumeEpoch = 0;
+			long resumeSequence = 0;
+			try {
+				if (separator > 0) {
+					resumeEpoch = Long.parseLong(resumeAfter.substring(0, separator));
+					resumeSequence = Long.parseLong(resumeAfter.substring(separator + 1));
+				}
+			} catch (NumberFormatException exception) {
+				resumeEpoch = 0;
+			}
+			employeeChangeLog.subscribe(resumeEpoch, resumeSequence, listener);
+		}
+		return emitter;
+	}
+
+	private static String eventId(long epoch, long sequence) {
+		return epoch + EVENT_ID_SEPARATOR + sequence;
+	}
+
+	private static void send(SseEmitter emitter, SseEventBuilder event) {
+		try {
+			emitter.send(event);
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+}
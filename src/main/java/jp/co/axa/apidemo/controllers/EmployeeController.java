@@ -1,23 +1,50 @@
 package jp.co.axa.apidemo.controllers;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jp.co.axa.apidemo.exception.InvalidRequestException;
+import jp.co.axa.apidemo.model.EmployeeBatchResult;
+import jp.co.axa.apidemo.model.EmployeeDeleteResult;
 import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.model.EmployeeSearchCriteria;
 import jp.co.axa.apidemo.services.EmployeeService;
+import jp.co.axa.apidemo.writebehind.EmployeeUpdateQueue;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -29,22 +56,165 @@ import lombok.extern.slf4j.Slf4j;
 @RequestMapping("/api/v1")
 public class EmployeeController {
 
+	/** Response header carrying the cursor of the next keyset page. */
+	public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+	private static final int DEFAULT_PAGE_SIZE = 100;
+
+	private static final int MAX_PAGE_SIZE = 1000;
+
+	/** Media type of newline delimited JSON accepted by the bulk import. */
+	public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+	/** Media type of CBOR, a compact binary encoding of the JSON data model. */
+	public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+
+	/** Media type of Smile, Jackson's binary JSON. */
+	public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+	/** Request header asking a write-behind update to be answered once committed. */
+	public static final String WRITE_ACK_HEADER = "X-Write-Ack";
+
+	/** Value of {@value #WRITE_ACK_HEADER} waiting for the commit. */
+	public static final String WRITE_ACK_COMMITTED = "committed";
+
+	/** Number of streamed records after which the JSON output is flushed. */
+	private static final int STREAM_FLUSH_INTERVAL = 500;
+
 	@Autowired
 	private EmployeeService employeeService;
 
+	@Autowired
+	private EmployeeUpdateQueue employeeUpdateQueue;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private HttpMessageConverters messageConverters;
+
+	@Autowired
+	private MessageSource messageSource;
+
 	/**
-	 * Returns the list of employees.
+	 * Returns the list of employees. When {@code after} or {@code limit} is given
+	 * only one keyset page ordered by id is returned, and the
+	 * {@value #NEXT_CURSOR_HEADER} header holds the {@code after} value of the
+	 * next page while more records may exist.
 	 *
+	 * @param after the last employee id of the previous page
+	 * @param limit the page size
 	 * @return the employees
 	 */
 	@GetMapping("/employees")
-	public ResponseEntity<List<EmployeeDto>> getEmployees() {
-		List<EmployeeDto> employeeDtos = employeeService.retrieveEmployees();
-		return new ResponseEntity<>(employeeDtos, HttpStatus.OK);
+	public ResponseEntity<List<EmployeeDto>> getEmployees(@RequestParam(name = "after", required = false) Long after,
+			@RequestParam(name = "limit", required = false) Integer limit) {
+		if (after == null && limit == null) {
+			List<EmployeeDto> employeeDtos = employeeService.retrieveEmployees();
+			return new ResponseEntity<>(employeeDtos, HttpStatus.OK);
+		}
+		int pageSize = pageSize(limit);
+		return pageResponse(employeeService.retrieveEmployees(after, pageSize), pageSize, EmployeeDto::getId);
+	}
+
+	/**
+	 * Returns the list of employees with only the requested fields, for example
+	 * {@code fields=id,name}. Only those columns are read and serialized, and the
+	 * id is always included. It is paged like {@link #getEmployees(Long, Integer)}.
+	 *
+	 * @param fields the field names
+	 * @param after  the last employee id of the previous page
+	 * @param limit  the page size
+	 * @return the employees with the requested fields
+	 */
+	@GetMapping(value = "/employees", params = "fields")
+	public ResponseEntity<List<Map<String, Object>>> getEmployeeFields(
+			@RequestParam(name = "fields") List<String> fields,
+			@RequestParam(name = "after", required = false) Long after,
+			@RequestParam(name = "limit", required = false) Integer limit) {
+		if (after == null && limit == null) {
+			return new ResponseEntity<>(employeeService.retrieveEmployeeFields(fields, null, null), HttpStatus.OK);
+		}
+		int pageSize = pageSize(limit);
+		return pageResponse(employeeService.retrieveEmployeeFields(fields, after, pageSize), pageSize,
+				row -> (Long) row.get("id"));
+	}
+
+	/**
+	 * Returns the employees of the given ids, for example {@code ids=1,2,3}, in
+	 * that order. Cached employees are served from the cache and the others are
+	 * read together, so the whole lookup costs at most one query per
+	 * {@code employee.batch.size} misses. Unknown ids are left out.
+	 *
+	 * @param employeeIds the employee ids
+	 * @return the found employees
+	 */
+	@GetMapping(value = "/employees", params = "ids")
+	public ResponseEntity<List<EmployeeDto>> getEmployeesByIds(@RequestParam(name = "ids") List<Long> employeeIds) {
+		return new ResponseEntity<>(employeeService.getEmployees(employeeIds), HttpStatus.OK);
+	}
+
+	/**
+	 * Same lookup as {@link #getEmployeesByIds(List)} for id lists too long for a
+	 * query string, sent as a JSON array.
+	 *
+	 * @param employeeIds the employee ids
+	 * @return the found employees
+	 */
+	@PostMapping("/employees/lookup")
+	public ResponseEntity<List<EmployeeDto>> lookupEmployees(@RequestBody List<Long> employeeIds) {
+		return new ResponseEntity<>(employeeService.getEmployees(employeeIds), HttpStatus.OK);
+	}
+
+	/**
+	 * Searches employees by exact department, name prefix and salary range. Only
+	 * the given filters are applied. The result is one keyset page ordered by id,
+	 * paged like {@link #getEmployees(Long, Integer)}.
+	 *
+	 * @param criteria the filters
+	 * @param after    the last employee id of the previous page
+	 * @param limit    the page size
+	 * @return the matching employees
+	 */
+	@GetMapping("/employees/search")
+	public ResponseEntity<List<EmployeeDto>> searchEmployees(EmployeeSearchCriteria criteria,
+			@RequestParam(name = "after", required = false) Long after,
+			@RequestParam(name = "limit", required = false) Integer limit) {
+		int pageSize = pageSize(limit);
+		return pageResponse(employeeService.searchEmployees(criteria, after, pageSize), pageSize, EmployeeDto::getId);
+	}
+
+	/**
+	 * Streams all employees as one JSON array, writing each record as it comes
+	 * off the database cursor so the whole table is never held in memory.
+	 *
+	 * @return the streamed employees
+	 */
+	@GetMapping("/employees/export")
+	public ResponseEntity<StreamingResponseBody> exportEmployees() {
+		StreamingResponseBody body = outputStream -> {
+			try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+				generator.writeStartArray();
+				int[] written = { 0 };
+				employeeService.streamEmployees(employeeDto -> {
+					try {
+						generator.writeObject(employeeDto);
+						if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+							generator.flush();
+						}
+					} catch (IOException exception) {
+						throw new UncheckedIOException(exception);
+					}
+				});
+				generator.writeEndArray();
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
 	}
 
 	/**
-	 * Gets the employee by employeeId.
+	 * Gets the employee by employeeId. The version is sent as a strong ETag, so a
+	 * request whose If-None-Match still matches is answered with 304 and no body.
 	 *
 	 * @param employeeId the employee id
 	 * @return the employee
@@ -52,7 +222,7 @@ public class EmployeeController {
 	@GetMapping("/employees/{employeeId}")
 	public ResponseEntity<EmployeeDto> getEmployee(@PathVariable(name = "employeeId") Long employeeId) {
 		EmployeeDto employeeDto = employeeService.getEmployee(employeeId);
-		return new ResponseEntity<>(employeeDto, HttpStatus.OK);
+		return withETag(ResponseEntity.ok(), employeeDto.getVersion()).body(employeeDto);
 	}
 
 	/**
@@ -69,33 +239,198 @@ public class EmployeeController {
 	}
 
 	/**
-	 * Api is use for removing the employee records.
+	 * Api is use for bulk inserting employee records, sent either as one JSON
+	 * array, as newline delimited JSON, or as a CBOR or Smile array or sequence
+	 * of records. The rows are read and validated one by one and the valid ones
+	 * are inserted in JDBC batches.
+	 *
+	 * @param contentType the media type of the request body
+	 * @param inputStream the request body
+	 * @return the per-row results and the achieved throughput
+	 * @throws IOException if the request body can not be read
+	 */
+	@PostMapping(value = "/employees/batch", consumes = { MediaType.APPLICATION_JSON_VALUE,
+			APPLICATION_NDJSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+	public ResponseEntity<EmployeeBatchResult> saveEmployees(
+			@RequestHeader(name = HttpHeaders.CONTENT_TYPE) String contentType, InputStream inputStream)
+			throws IOException {
+		try (MappingIterator<EmployeeDto> employeeDtos = objectMapperFor(MediaType.parseMediaType(contentType))
+				.readerFor(EmployeeDto.class).readValues(inputStream)) {
+			EmployeeBatchResult result = employeeService.saveEmployees(employeeDtos);
+			log.info("Employee batch saved, {} inserted and {} rejected", result.getInserted(), result.getRejected());
+			return new ResponseEntity<>(result, HttpStatus.OK);
+		}
+	}
+
+	/**
+	 * Api is use for removing the employee records. With an If-Match header the
+	 * employee is only removed if its ETag still matches, otherwise 412 is
+	 * returned.
 	 *
 	 * @param employeeId the employee id
+	 * @param ifMatch    the optional If-Match header
 	 * @return the response entity
 	 */
 	@DeleteMapping("/employees/{employeeId}")
-	public ResponseEntity<Object> deleteEmployee(@PathVariable(name = "employeeId") Long employeeId) {
-		employeeService.deleteEmployee(employeeId);
+	public ResponseEntity<Object> deleteEmployee(@PathVariable(name = "employeeId") Long employeeId,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Long expectedVersion = parseIfMatch(ifMatch);
+		employeeUpdateQueue.drain(employeeId);
+		if (expectedVersion == null) {
+			employeeService.deleteEmployee(employeeId);
+		} else {
+			employeeService.deleteEmployee(employeeId, expectedVersion);
+		}
 		log.info("Employee Deleted Successfully");
 		return new ResponseEntity<>(HttpStatus.OK);
 
 	}
 
 	/**
-	 * Api use for Update employee records.
+	 * Api is use for removing the employee records of the given ids, for example
+	 * when offboarding a batch of employees. Unknown ids are ignored, so the call
+	 * can be repeated safely.
+	 *
+	 * @param employeeIds the employee ids
+	 * @return the number of requested and deleted employees
+	 */
+	@DeleteMapping("/employees")
+	public ResponseEntity<EmployeeDeleteResult> deleteEmployees(
+			@RequestParam(name = "ids") List<Long> employeeIds) {
+		employeeIds.forEach(employeeUpdateQueue::drain);
+		int deleted = employeeService.deleteEmployees(employeeIds);
+		log.info("{} of {} employees deleted", deleted, employeeIds.size());
+		return ResponseEntity.ok(new EmployeeDeleteResult(employeeIds.size(), deleted));
+	}
+
+	/**
+	 * Api use for Update employee records. With an If-Match header the employee
+	 * is only updated if its ETag still matches, otherwise 412 is returned. The
+	 * new ETag is sent back. When write-behind is enabled, updates without
+	 * If-Match of an existing employee are queued and answered with 202 right
+	 * away, or once committed with the new ETag when the caller sends
+	 * {@code X-Write-Ack: committed}. A queued update can still fail after 202,
+	 * for example when the employee is deleted meanwhile; it is then only logged.
+	 * Any other write of the employee commits its queued update first.
 	 *
 	 * @param employeeDto the employee dto
 	 * @param employeeId the employee id
+	 * @param ifMatch    the optional If-Match header
+	 * @param writeAck   the optional write acknowledgement header
 	 * @return the response entity
 	 */
 	@PutMapping("/employees/{employeeId}")
 	public ResponseEntity<Object> updateEmployee(@RequestBody EmployeeDto employeeDto,
-			@PathVariable(name = "employeeId") Long employeeId) {
-		employeeService.updateEmployee(employeeDto, employeeId);
+			@PathVariable(name = "employeeId") Long employeeId,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(name = WRITE_ACK_HEADER, required = false) String writeAck) {
+		if (ifMatch != null) {
+			employeeDto.setVersion(parseIfMatch(ifMatch));
+		} else if (employeeUpdateQueue.isEnabled()) {
+			// answer 404 like the other APIs rather than failing the queued update
+			employeeService.getEmployee(employeeId);
+			CompletableFuture<EmployeeDto> committed = employeeUpdateQueue.enqueue(employeeId, employeeDto);
+			if (!WRITE_ACK_COMMITTED.equalsIgnoreCase(writeAck)) {
+				return ResponseEntity.accepted().build();
+			}
+			return withETag(ResponseEntity.ok(), employeeUpdateQueue.awaitCommit(committed).getVersion()).build();
+		}
+		employeeUpdateQueue.drain(employeeId);
+		EmployeeDto updatedDto = employeeService.updateEmployee(employeeDto, employeeId);
 		log.info("Employee updated Successfully");
-		return new ResponseEntity<>(HttpStatus.OK);
+		return withETag(ResponseEntity.ok(), updatedDto.getVersion()).build();
 
 	}
 
+	/**
+	 * Api use for partially updating employee records, only the fields present in
+	 * the request body are changed. With an If-Match header the employee is only
+	 * updated if its ETag still matches, otherwise 412 is returned. The response
+	 * carries the new ETag either way.
+	 *
+	 * @param employeeDto the fields to change
+	 * @param employeeId  the employee id
+	 * @param ifMatch     the optional If-Match header
+	 * @return the response entity
+	 */
+	@PatchMapping("/employees/{employeeId}")
+	public ResponseEntity<Object> patchEmployee(@RequestBody EmployeeDto employeeDto,
+			@PathVariable(name = "employeeId") Long employeeId,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		if (ifMatch != null) {
+			employeeDto.setVersion(parseIfMatch(ifMatch));
+		}
+		employeeUpdateQueue.drain(employeeId);
+		Long version = employeeService.patchEmployee(employeeDto, employeeId);
+		log.info("Employee patched Successfully");
+		return withETag(ResponseEntity.ok(), version).build();
+	}
+
+	/**
+	 * Finds the object mapper of the Jackson converter reading the given media
+	 * type, so the bulk import decodes the same formats as the other APIs.
+	 * Newline delimited JSON has no converter and is read as JSON.
+	 */
+	private ObjectMapper objectMapperFor(MediaType contentType) {
+		return messageConverters.getConverters().stream()
+				.filter(AbstractJackson2HttpMessageConverter.class::isInstance)
+				.map(AbstractJackson2HttpMessageConverter.class::cast)
+				.filter(converter -> converter.canRead(EmployeeDto.class, contentType))
+				.map(AbstractJackson2HttpMessageConverter::getObjectMapper).findFirst().orElse(objectMapper);
+	}
+
+	private static int pageSize(Integer limit) {
+		return limit == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+	}
+
+	/**
+	 * Wraps a keyset page, adding the cursor of the next page when the page is
+	 * full.
+	 */
+	private static <T> ResponseEntity<List<T>> pageResponse(List<T> employees, int pageSize, Function<T, Long> idOf) {
+		HttpHeaders headers = new HttpHeaders();
+		if (employees.size() == pageSize) {
+			headers.set(NEXT_CURSOR_HEADER, String.valueOf(idOf.apply(employees.get(pageSize - 1))));
+		}
+		return new ResponseEntity<>(employees, headers, HttpStatus.OK);
+	}
+
+	/**
+	 * Sets the version as strong ETag, when it is known.
+	 */
+	private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, Long version) {
+		return version == null ? builder : builder.eTag("\"" + version + "\"");
+	}
+
+	/**
+	 * Reads the expected version out of an If-Match header, a comma-separated list
+	 * of ETags. Returns null when the header is absent or {@code *}. A weak or
+	 * unknown ETag can never match and is ignored; when no ETag is left the
+	 * expected version is one no employee has. An employee has a single version,
+	 * so a list of several versions is rejected.
+	 */
+	private Long parseIfMatch(String ifMatch) {
+		if (ifMatch == null || "*".equals(ifMatch.trim())) {
+			return null;
+		}
+		Set<Long> versions = new TreeSet<>();
+		for (String element : ifMatch.split(",")) {
+			String etag = element.trim();
+			if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+				try {
+					versions.add(Long.valueOf(etag.substring(1, etag.length() - 1)));
+					continue;
+				} catch (NumberFormatException exception) {
+					// not an ETag of this API
+				}
+			}
+			log.debug("Unknown ETag {}", etag);
+		}
+		if (versions.size() > 1) {
+			throw new InvalidRequestException(messageSource.getMessage("error.employee.ifmatch.invalid",
+					new Object[] { ifMatch }, Locale.ENGLISH));
+		}
+		return versions.isEmpty() ? -1L : versions.iterator().next();
+	}
+
 }
@@ -0,0 +1,65 @@
+package jp.co.axa.apidemo.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jp.co.axa.apidemo.model.EmployeeSnapshotResult;
+import jp.co.axa.apidemo.snapshot.EmployeeSnapshotService;
+
+/**
+ * This controller is entry point for the administration of the employee
+ * snapshots, used for disaster recovery and to seed environments.
+ *
+ */
+@RestController
+@RequestMapping("/api/v1/admin")
+public class SnapshotController {
+
+	@Autowired
+	private EmployeeSnapshotService employeeSnapshotService;
+
+	/**
+	 * Writes all the employees to a new snapshot file on the server.
+	 *
+	 * @return the snapshot name, its size and the throughput
+	 */
+	@PostMapping("/snapshots")
+	public ResponseEntity<EmployeeSnapshotResult> exportSnapshot() {
+		return new ResponseEntity<>(employeeSnapshotService.exportSnapshot(), HttpStatus.CREATED);
+	}
+
+	/**
+	 * Downloads a snapshot file, to keep it off the server or to seed another
+	 * environment.
+	 *
+	 * @param name the snapshot name
+	 * @return the snapshot file
+	 */
+	@GetMapping("/snapshots/{name:.+}")
+	public ResponseEntity<Resource> downloadSnapshot(@PathVariable(name = "name") String name) {
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"")
+				.body(new FileSystemResource(employeeSnapshotService.snapshotFile(name)));
+	}
+
+	/**
+	 * Replaces all the employees with the ones of the snapshot.
+	 *
+	 * @param name the snapshot name
+	 * @return the number of restored employees and the throughput
+	 */
+	@PostMapping("/snapshots/{name:.+}/restore")
+	public ResponseEntity<EmployeeSnapshotResult> restoreSnapshot(@PathVariable(name = "name") String name) {
+		return new ResponseEntity<>(employeeSnapshotService.restoreSnapshot(name), HttpStatus.OK);
+	}
+}
@@ -0,0 +1,51 @@
+package jp.co.axa.apidemo.converters;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jp.co.axa.apidemo.metrics.TimedMappingJackson2CborHttpMessageConverter;
+import jp.co.axa.apidemo.metrics.TimedMappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary message converters, selected by the Accept and Content-Type headers
+ * next to JSON. Their object mappers get the same modules and settings as the
+ * JSON one, so the DTOs are read and written the same way, and their
+ * serialization is timed like the JSON one.
+ */
+@Configuration
+public class BinaryConvertersConfig {
+
+	@Autowired
+	private ObjectProvider<MeterRegistry> meterRegistry;
+
+	@Bean
+	public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		return new TimedMappingJackson2CborHttpMessageConverter(
+				objectMapper(builder, new ObjectMapper(new CBORFactory())), meterRegistry);
+	}
+
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		return new TimedMappingJackson2SmileHttpMessageConverter(
+				objectMapper(builder, new ObjectMapper(new SmileFactory())), meterRegistry);
+	}
+
+	/**
+	 * Applies the application's Jackson settings to the given mapper, the shared
+	 * builder itself is left unchanged.
+	 */
+	private static ObjectMapper objectMapper(Jackson2ObjectMapperBuilder builder, ObjectMapper objectMapper) {
+		builder.configure(objectMapper);
+		return objectMapper;
+	}
+}
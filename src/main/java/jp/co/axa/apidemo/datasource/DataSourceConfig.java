@@ -0,0 +1,84 @@
+package jp.co.axa.apidemo.datasource;
+
+import java.sql.Connection;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Data source configuration. When a replica is configured under
+ * {@code employee.datasource.replica}, the application data source routes the
+ * read-only transactions to it and everything else to the primary configured
+ * under {@code spring.datasource}. Each has its own Hikari pool, the replica
+ * pool takes the Hikari property names, {@code jdbc-url} for its URL.
+ */
+@Configuration
+public class DataSourceConfig {
+
+	@Bean
+	public static PoolSizePostProcessor poolSizePostProcessor(Environment environment) {
+		return new PoolSizePostProcessor(environment);
+	}
+
+	@Configuration
+	@ConditionalOnProperty(prefix = "employee.datasource.replica", name = "jdbc-url")
+	static class ReplicaConfiguration {
+
+		/** Time after a write during which the reads of the same client stay on the primary. */
+		@Value("${employee.datasource.read-your-writes-window:5s}")
+		private Duration readYourWritesWindow;
+
+		@Bean
+		@ConfigurationProperties("spring.datasource.hikari")
+		public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+			HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+					.build();
+			dataSource.setPoolName("primary");
+			return dataSource;
+		}
+
+		@Bean
+		@ConfigurationProperties("employee.datasource.replica")
+		public HikariDataSource replicaDataSource() {
+			HikariDataSource dataSource = new HikariDataSource();
+			dataSource.setPoolName("replica");
+			dataSource.setReadOnly(true);
+			return dataSource;
+		}
+
+		/**
+		 * The application data source. The pools are injected lazily: Boot
+		 * initializes the data source as soon as it sees any data source bean,
+		 * which must not happen while this one still waits for its pools.
+		 */
+		@Bean
+		@Primary
+		public DataSource dataSource(@Lazy @Qualifier("primaryDataSource") DataSource primary,
+				@Lazy @Qualifier("replicaDataSource") DataSource replica) {
+			ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica,
+					new ReadYourWritesWindow(readYourWritesWindow));
+			routing.afterPropertiesSet();
+			// given rather than read from a connection, which would need the pools now
+			LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+			dataSource.setTargetDataSource(routing);
+			dataSource.setDefaultAutoCommit(true);
+			dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+			dataSource.afterPropertiesSet();
+			return dataSource;
+		}
+	}
+}
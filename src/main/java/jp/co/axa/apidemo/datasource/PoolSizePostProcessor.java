@@ -0,0 +1,38 @@
+package jp.co.axa.apidemo.datasource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sizes the Hikari pool from the number of cores when
+ * {@code employee.datasource.connections-per-core} is set: each core gets that
+ * many connections plus one for the disk, the usual starting point for a pool
+ * that keeps the database busy without queueing on it. The pool is sized before
+ * it is used, so the employee executor derived from it follows.
+ */
+@Slf4j
+public class PoolSizePostProcessor implements BeanPostProcessor {
+
+	private final Environment environment;
+
+	public PoolSizePostProcessor(Environment environment) {
+		this.environment = environment;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		int connectionsPerCore = environment.getProperty("employee.datasource.connections-per-core", Integer.class, 0);
+		if (bean instanceof HikariDataSource && connectionsPerCore > 0) {
+			HikariDataSource dataSource = (HikariDataSource) bean;
+			int poolSize = Runtime.getRuntime().availableProcessors() * connectionsPerCore + 1;
+			dataSource.setMaximumPoolSize(poolSize);
+			dataSource.setMinimumIdle(poolSize);
+			log.info("Connection pool of {} sized to {} connections", beanName, poolSize);
+		}
+		return bean;
+	}
+}
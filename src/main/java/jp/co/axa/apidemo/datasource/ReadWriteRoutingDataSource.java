@@ -0,0 +1,106 @@
+package jp.co.axa.apidemo.datasource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Sends the connections of read-only transactions to the replica and every
+ * other connection to the primary. A client, the authenticated user from one
+ * remote address, that committed a write keeps reading from the primary for the
+ * read-your-writes window. Reads shared with every client, such as the ones
+ * filling the employee cache, are made with {@link #readFromPrimary(Supplier)}
+ * so a lagging replica is never cached. The read-only flag of a transaction is
+ * only known once it has begun, so this data source has to be wrapped in a
+ * {@code LazyConnectionDataSourceProxy}, which asks for the connection at the
+ * first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+	static final String PRIMARY = "primary";
+
+	static final String REPLICA = "replica";
+
+	/** Set while the current thread makes reads that must not go to the replica. */
+	private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+	private final ReadYourWritesWindow readYourWritesWindow;
+
+	public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+			ReadYourWritesWindow readYourWritesWindow) {
+		this.readYourWritesWindow = readYourWritesWindow;
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		targets.put(REPLICA, replica);
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		String client = currentClient();
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			if (client != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCompletion(int status) {
+						if (status == STATUS_COMMITTED) {
+							readYourWritesWindow.recordWrite(client);
+						}
+					}
+				});
+			}
+			return PRIMARY;
+		}
+		return PRIMARY_READS.get() != null || client != null && readYourWritesWindow.isPinned(client) ? PRIMARY
+				: REPLICA;
+	}
+
+	/**
+	 * Makes reads from the primary, even within a read-only transaction. The
+	 * connection of a transaction is kept once taken, so the reads have to be its
+	 * first statements.
+	 *
+	 * @param reads the reads
+	 * @return the result of the reads
+	 */
+	public static <T> T readFromPrimary(Supplier<T> reads) {
+		boolean outermost = PRIMARY_READS.get() == null;
+		PRIMARY_READS.set(Boolean.TRUE);
+		try {
+			return reads.get();
+		} finally {
+			if (outermost) {
+				PRIMARY_READS.remove();
+			}
+		}
+	}
+
+	/**
+	 * Identifies the client by the authenticated user and, within a request, its
+	 * remote address, as every client may share the same user.
+	 */
+	private static String currentClient() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null || !authentication.isAuthenticated()) {
+			return null;
+		}
+		RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		if (requestAttributes instanceof ServletRequestAttributes) {
+			return authentication.getName() + "@"
+					+ ((ServletRequestAttributes) requestAttributes).getRequest().getRemoteAddr();
+		}
+		return authentication.getName();
+	}
+}
@@ -0,0 +1,44 @@
+package jp.co.axa.apidemo.datasource;
+
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Clients that committed a write recently. Their reads stay on the primary
+ * until the window has passed, so they see their own writes even while the
+ * replica lags behind.
+ */
+public class ReadYourWritesWindow {
+
+	private static final int MAX_CLIENTS = 100_000;
+
+	private final Cache<String, Boolean> writers;
+
+	public ReadYourWritesWindow(Duration window) {
+		this.writers = window.isZero() ? null
+				: Caffeine.newBuilder().maximumSize(MAX_CLIENTS).expireAfterWrite(window).build();
+	}
+
+	/**
+	 * Record a write committed by a client, restarting its window.
+	 *
+	 * @param client the client
+	 */
+	public void recordWrite(String client) {
+		if (writers != null) {
+			writers.put(client, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Tells whether the reads of a client have to stay on the primary.
+	 *
+	 * @param client the client
+	 * @return true if the client wrote within the window
+	 */
+	public boolean isPinned(String client) {
+		return writers != null && writers.getIfPresent(client) != null;
+	}
+}
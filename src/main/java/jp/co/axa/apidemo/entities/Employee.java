@@ -12,13 +12,19 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Getter
 @Setter
 @Builder
 @Entity
-@Table(name = "EMPLOYEE")
+@Table(name = "EMPLOYEE", indexes = {
+		@Index(name = "IDX_EMPLOYEE_DEPARTMENT_SALARY", columnList = "DEPARTMENT, EMPLOYEE_SALARY"),
+		@Index(name = "IDX_EMPLOYEE_DEPARTMENT_NAME", columnList = "DEPARTMENT, EMPLOYEE_NAME"),
+		@Index(name = "IDX_EMPLOYEE_NAME", columnList = "EMPLOYEE_NAME"),
+		@Index(name = "IDX_EMPLOYEE_SALARY", columnList = "EMPLOYEE_SALARY") })
 public class Employee {
 
 	@Id
@@ -34,6 +40,10 @@ public class Employee {
 	@Column(name = "DEPARTMENT")
 	private String department;
 
+	@Version
+	@Column(name = "VERSION")
+	private Long version;
+
 	@Tolerate
 	public Employee() {
 	}
@@ -1,9 +1,22 @@
 package jp.co.axa.apidemo.exception;
 
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolationException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -17,18 +30,106 @@ public class GlobalExceptionHandler {
 
 	private static final String ERROR_500 = "Oops! something went wrong, please contact your service provider.";
 
+	private static final String ERROR_503 = "The service is busy, please retry later.";
+
+	/** Seconds a client is asked to wait before retrying an overloaded request. */
+	private static final String RETRY_AFTER_SECONDS = "1";
+
+	/** Minimum interval between two log lines about records not found. */
+	private static final long NOT_FOUND_LOG_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+	@Autowired
+	private MessageSource messageSource;
+
+	private final AtomicLong notFoundCount = new AtomicLong();
+
+	private final AtomicLong nextNotFoundLog = new AtomicLong();
+
 	/**
-	 * Exception handler for record not found.
+	 * Exception handler for record not found. Unknown ids are requested often by
+	 * scanners and retrying clients, so they are only counted and reported at
+	 * most once per interval.
 	 *
 	 * @param ex
 	 * @return the response entity
 	 */
 	@ExceptionHandler(RecordNotFoundException.class)
 	public ResponseEntity<Object> handleRecordNotFoundException(RecordNotFoundException ex) {
-		log.error("Record is not found in the records: ", ex);
+		notFoundCount.incrementAndGet();
+		long now = System.currentTimeMillis();
+		long nextLog = nextNotFoundLog.get();
+		if (now >= nextLog && nextNotFoundLog.compareAndSet(nextLog, now + NOT_FOUND_LOG_INTERVAL_MILLIS)) {
+			log.info("{} records not found since the last report, latest: {}", notFoundCount.getAndSet(0),
+					ex.getMessage());
+		}
 		return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
 	}
 
+	/**
+	 * Exception handler for a conditional request on an outdated version.
+	 *
+	 * @param ex the ex
+	 * @return the response entity
+	 */
+	@ExceptionHandler(PreconditionFailedException.class)
+	public ResponseEntity<Object> handlePreconditionFailedException(PreconditionFailedException ex) {
+		return new ResponseEntity<>(ex.getMessage(), HttpStatus.PRECONDITION_FAILED);
+	}
+
+	/**
+	 * Exception handler for a concurrent update detected by the version column
+	 * while writing.
+	 *
+	 * @param ex the ex
+	 * @return the response entity
+	 */
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	public ResponseEntity<Object> handleOptimisticLockingFailureException(ObjectOptimisticLockingFailureException ex) {
+		log.info("Concurrent update of {} rejected", ex.getPersistentClassName());
+		String errorMessage = messageSource.getMessage("error.employee.version.mismatch", null, Locale.ENGLISH);
+		return new ResponseEntity<>(errorMessage, HttpStatus.PRECONDITION_FAILED);
+	}
+
+	/**
+	 * Exception handler for invalid input.
+	 *
+	 * @param ex the ex
+	 * @return the response entity
+	 */
+	@ExceptionHandler(ConstraintViolationException.class)
+	public ResponseEntity<Object> handleConstraintViolationException(ConstraintViolationException ex) {
+		String errorMessage = ex.getConstraintViolations().stream()
+				.map(violation -> violation.getPropertyPath() + " " + violation.getMessage()).sorted()
+				.collect(Collectors.joining(", "));
+		return new ResponseEntity<>(errorMessage, HttpStatus.BAD_REQUEST);
+	}
+
+	/**
+	 * Exception handler for a request parameter that can not be served.
+	 *
+	 * @param ex the ex
+	 * @return the response entity
+	 */
+	@ExceptionHandler(InvalidRequestException.class)
+	public ResponseEntity<Object> handleInvalidRequestException(InvalidRequestException ex) {
+		return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+	}
+
+	/**
+	 * Exception handler for requests rejected because the service is saturated or
+	 * over its concurrency limit, the client is told to retry later.
+	 *
+	 * @param ex the ex
+	 * @return the response entity
+	 */
+	@ExceptionHandler({ RejectedExecutionException.class, AsyncRequestTimeoutException.class,
+			ServiceOverloadedException.class })
+	public ResponseEntity<Object> handleServiceOverloaded(Exception ex) {
+		log.debug("Request rejected: {}", ex.toString());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+				.body(ERROR_503);
+	}
+
 	/**
 	 * Handle all exception.
 	 *
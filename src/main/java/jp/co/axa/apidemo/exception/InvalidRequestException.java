@@ -0,0 +1,17 @@
+package jp.co.axa.apidemo.exception;
+
+/**
+ * The Class InvalidRequestException for a request parameter that can not be
+ * served, answered with 400.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -2034819361829474811L;
+
+	public InvalidRequestException(String message) {
+		super(message);
+	}
+}
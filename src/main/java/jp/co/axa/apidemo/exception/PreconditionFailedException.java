@@ -0,0 +1,17 @@
+package jp.co.axa.apidemo.exception;
+
+/**
+ * The Class PreconditionFailedException for a conditional request whose
+ * expected version no longer matches the stored record.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 4172983165270493562L;
+
+	public PreconditionFailedException(String message) {
+		super(message);
+	}
+}
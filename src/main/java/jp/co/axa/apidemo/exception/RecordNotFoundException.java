@@ -2,7 +2,8 @@ package jp.co.axa.apidemo.exception;
 
 /**
  * The Class RecordNotFoundException for result is missing for given search
- * query.
+ * query. It is an expected outcome answered with 404, so it is created without
+ * a stack trace.
  */
 public class RecordNotFoundException extends RuntimeException {
 
@@ -12,6 +13,6 @@ public class RecordNotFoundException extends RuntimeException {
 	private static final long serialVersionUID = -6393550964408266201L;
 
 	public RecordNotFoundException(String message) {
-		super(message);
+		super(message, null, false, false);
 	}
 }
@@ -0,0 +1,18 @@
+package jp.co.axa.apidemo.exception;
+
+/**
+ * The Class ServiceOverloadedException for calls shed by a concurrency limit.
+ * Shedding has to stay cheap under overload and is answered with 503, so it is
+ * created without a stack trace.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 4127795861230944617L;
+
+	public ServiceOverloadedException(String message) {
+		super(message, null, false, false);
+	}
+}
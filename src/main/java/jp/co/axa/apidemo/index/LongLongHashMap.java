@@ -0,0 +1,143 @@
+package jp.co.axa.apidemo.index;
+
+import java.util.Arrays;
+
+/**
+ * Map of long keys to long values in two primitive arrays, with linear probing
+ * and backward shift deletion, so entries take 16 bytes and nothing is boxed.
+ * Not thread-safe.
+ */
+class LongLongHashMap {
+
+	/** Value returned for an absent key, never stored. */
+	static final long NO_VALUE = Long.MIN_VALUE;
+
+	private static final long EMPTY = 0L;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+
+	private long[] values;
+
+	/** Key 0 marks an empty slot, so its value is kept aside. */
+	private long zeroValue = NO_VALUE;
+
+	private int size;
+
+	private int mask;
+
+	LongLongHashMap(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	int size() {
+		return size + (zeroValue == NO_VALUE ? 0 : 1);
+	}
+
+	long get(long key) {
+		if (key == EMPTY) {
+			return zeroValue;
+		}
+		for (int slot = slot(key);; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+			if (keys[slot] == EMPTY) {
+				return NO_VALUE;
+			}
+		}
+	}
+
+	/**
+	 * Associates the value with the key.
+	 *
+	 * @return the previous value, or {@link #NO_VALUE}
+	 */
+	long put(long key, long value) {
+		if (key == EMPTY) {
+			long previous = zeroValue;
+			zeroValue = value;
+			return previous;
+		}
+		int slot = slot(key);
+		for (; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				long previous = values[slot];
+				values[slot] = value;
+				return previous;
+			}
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size * 2 > keys.length) {
+			rehash(keys.length << 1);
+		}
+		return NO_VALUE;
+	}
+
+	/**
+	 * Removes the key.
+	 *
+	 * @return the removed value, or {@link #NO_VALUE}
+	 */
+	long remove(long key) {
+		if (key == EMPTY) {
+			long previous = zeroValue;
+			zeroValue = NO_VALUE;
+			return previous;
+		}
+		int slot = slot(key);
+		for (; keys[slot] != key; slot = (slot + 1) & mask) {
+			if (keys[slot] == EMPTY) {
+				return NO_VALUE;
+			}
+		}
+		long previous = values[slot];
+		size--;
+		// shift back the following entries of the run that probed past the slot
+		for (int next = (slot + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+			int home = slot(keys[next]);
+			if (((next - home) & mask) >= ((next - slot) & mask)) {
+				keys[slot] = keys[next];
+				values[slot] = values[next];
+				slot = next;
+			}
+		}
+		keys[slot] = EMPTY;
+		return previous;
+	}
+
+	void clear() {
+		Arrays.fill(keys, EMPTY);
+		zeroValue = NO_VALUE;
+		size = 0;
+	}
+
+	private int slot(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		allocate(capacity);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new long[capacity];
+		mask = capacity - 1;
+	}
+}
@@ -0,0 +1,457 @@
+package jp.co.axa.apidemo.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import jp.co.axa.apidemo.changes.EmployeeChangeListener;
+import jp.co.axa.apidemo.changes.EmployeeChangeLog;
+import jp.co.axa.apidemo.model.EmployeeChange;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory index of the salaries by department, so percentiles and range
+ * counts are answered in microseconds without the database. Each department
+ * keeps its salaries in cents in a sorted primitive array: a percentile is one
+ * array read and a range count two binary searches, with nothing boxed. The department and salary
+ * of every employee are kept by id so a change can remove the old salary.
+ * <p>
+ * The index is loaded from the employee table on startup and kept current from
+ * the committed changes of the change log; changes arriving while it loads are
+ * applied after it. The version of every employee is kept too, so a change
+ * older than what the index already shows is ignored, and so is any change of a
+ * deleted employee. A change committed before a delete can only be logged after
+ * it within a few sequences, so the tombstone of a deleted employee is dropped
+ * once {@code employee.changes.capacity} further changes were applied; a change
+ * logged that late would bring the employee back until the next reload. A reset of the change log, after a snapshot restore, reloads
+ * it in the background. Employees without a department or salary are not
+ * indexed.
+ */
+@Slf4j
+@Component
+public class SalaryIndex implements ApplicationRunner, EmployeeChangeListener {
+
+	/** Bits of the department code in a packed employee entry. */
+	private static final int CENTS_BITS = 40;
+
+	private static final long CENTS_MASK = (1L << CENTS_BITS) - 1;
+
+	private static final long MAX_CENTS = (1L << (CENTS_BITS - 1)) - 1;
+
+	private static final int INITIAL_EMPLOYEES = 1024;
+
+	/** Version kept for a deleted employee, whose ids are not reused. */
+	private static final long DELETED = Long.MAX_VALUE;
+
+	/** Version kept for an employee without one. */
+	private static final long NO_VERSION = -1;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private EmployeeChangeLog employeeChangeLog;
+
+	/** Sequences after a delete during which its tombstone is kept. */
+	@Value("${employee.changes.capacity:10000}")
+	private long tombstoneSequences;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** Guarded by lock. */
+	private final Map<String, DepartmentSalaries> departments = new HashMap<>();
+
+	/** Departments by code, guarded by lock. */
+	private final List<DepartmentSalaries> departmentsByCode = new ArrayList<>();
+
+	/** Department code and salary packed by employee id, guarded by lock. */
+	private LongLongHashMap employees = new LongLongHashMap(INITIAL_EMPLOYEES);
+
+	/** Version by employee id, guarded by lock. */
+	private LongLongHashMap versions = new LongLongHashMap(INITIAL_EMPLOYEES);
+
+	/** Deletes whose tombstone is in the versions, in sequence order; guarded by lock. */
+	private final Deque<EmployeeChange> tombstones = new ArrayDeque<>();
+
+	/** Changes received while loading, null once loaded; guarded by lock. */
+	private List<EmployeeChange> pendingChanges = new ArrayList<>();
+
+	/** Incremented by each reload, a load overtaken by another is dropped; guarded by lock. */
+	private long loadGeneration;
+
+	/** Reloads the index without holding up the delivery of the changes. */
+	private final ExecutorService loader = Executors
+			.newSingleThreadExecutor(new CustomizableThreadFactory("salary-index-"));
+
+	@Override
+	public void run(ApplicationArguments args) {
+		employeeChangeLog.subscribe(this);
+		load();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		loader.shutdownNow();
+	}
+
+	@Override
+	public void onChange(EmployeeChange change) {
+		lock.writeLock().lock();
+		try {
+			if (pendingChanges != null) {
+				pendingChanges.add(change);
+				return;
+			}
+			apply(change);
+		} catch (RuntimeException exception) {
+			log.warn("Salary index failed to apply change {}, reloading it", change.getSequence(), exception);
+			reload();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void onReset(long sequence) {
+		lock.writeLock().lock();
+		try {
+			reload();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Tells whether the index is loaded and can be queried.
+	 *
+	 * @return true once loaded
+	 */
+	public boolean isReady() {
+		lock.readLock().lock();
+		try {
+			return pendingChanges == null;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of indexed employees of a department.
+	 *
+	 * @param department the department
+	 * @return the number of employees, 0 for an unknown department
+	 */
+	public int count(String department) {
+		lock.readLock().lock();
+		try {
+			DepartmentSalaries salaries = departments.get(department);
+			return salaries == null ? 0 : salaries.size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets salary percentiles of a department by the nearest-rank method: the
+	 * p-th percentile is the smallest salary at or above which lie p percent of
+	 * the salaries.
+	 *
+	 * @param department  the department
+	 * @param percentiles the percentiles, between 0 and 100
+	 * @return the salaries in cents, in the order of the percentiles, or null when
+	 *         the department has no employee
+	 */
+	public long[] percentiles(String department, double[] percentiles) {
+		lock.readLock().lock();
+		try {
+			DepartmentSalaries salaries = departments.get(department);
+			if (salaries == null || salaries.size == 0) {
+				return null;
+			}
+			long[] result = new long[percentiles.length];
+			for (int i = 0; i < percentiles.length; i++) {
+				int rank = (int) Math.ceil(percentiles[i] / 100 * salaries.size);
+				result[i] = salaries.cents[Math.max(rank, 1) - 1];
+			}
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Counts the employees of a department in a salary range.
+	 *
+	 * @param department the department
+	 * @param minCents   the lowest salary in cents, inclusive
+	 * @param maxCents   the highest salary in cents, exclusive
+	 * @return the number of employees
+	 */
+	public int countBetween(String department, long minCents, long maxCents) {
+		lock.readLock().lock();
+		try {
+			DepartmentSalaries salaries = departments.get(department);
+			if (salaries == null || minCents >= maxCents) {
+				return 0;
+			}
+			return salaries.lowerBound(maxCents) - salaries.lowerBound(minCents);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Converts a salary to the cents kept by the index.
+	 *
+	 * @param salary the salary
+	 * @return the salary in cents, rounded half up
+	 */
+	public static long toCents(BigDecimal salary) {
+		return salary.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+	}
+
+	/**
+	 * Marks the index as loading and reloads it in the background, with the write
+	 * lock held.
+	 */
+	private void reload() {
+		loadGeneration++;
+		pendingChanges = new ArrayList<>();
+		try {
+			loader.execute(() -> {
+				try {
+					load();
+				} catch (RuntimeException exception) {
+					log.warn("Salary index failed to reload, it stays unavailable until the next reset", exception);
+				}
+			});
+		} catch (RejectedExecutionException exception) {
+			log.debug("Salary index is shut down", exception);
+		}
+	}
+
+	/**
+	 * Loads all the employees from the table, then applies the changes received
+	 * meanwhile. A change may have been committed before or after the scan read its
+	 * employee; the versions tell which, so only the later ones are applied. A load
+	 * overtaken by a reload is dropped.
+	 */
+	private void load() {
+		long start = System.currentTimeMillis();
+		long generation;
+		lock.readLock().lock();
+		try {
+			generation = loadGeneration;
+		} finally {
+			lock.readLock().unlock();
+		}
+		Map<String, DepartmentSalaries> loadedDepartments = new HashMap<>();
+		List<DepartmentSalaries> loadedDepartmentsByCode = new ArrayList<>();
+		LongLongHashMap loadedEmployees = new LongLongHashMap(INITIAL_EMPLOYEES);
+		LongLongHashMap loadedVersions = new LongLongHashMap(INITIAL_EMPLOYEES);
+		employeeRepository.scanEmployees(employee -> {
+			loadedVersions.put(employee.getId(), employee.getVersion() == null ? NO_VERSION : employee.getVersion());
+			if (employee.getDepartment() == null || !indexable(employee.getSalary())) {
+				return;
+			}
+			DepartmentSalaries salaries = loadedDepartments.computeIfAbsent(employee.getDepartment(), name -> {
+				DepartmentSalaries added = new DepartmentSalaries(loadedDepartmentsByCode.size(), name);
+				loadedDepartmentsByCode.add(added);
+				return added;
+			});
+			long cents = toCents(employee.getSalary());
+			salaries.append(cents);
+			loadedEmployees.put(employee.getId(), pack(salaries.code, cents));
+		});
+		loadedDepartments.values().forEach(DepartmentSalaries::sort);
+
+		int applied;
+		lock.writeLock().lock();
+		try {
+			if (generation != loadGeneration) {
+				return;
+			}
+			departments.clear();
+			departments.putAll(loadedDepartments);
+			departmentsByCode.clear();
+			departmentsByCode.addAll(loadedDepartmentsByCode);
+			employees = loadedEmployees;
+			versions = loadedVersions;
+			tombstones.clear();
+			applied = pendingChanges.size();
+			pendingChanges.forEach(this::apply);
+			pendingChanges = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+		log.info("Salary index loaded with {} employees in {} departments in {} ms, {} changes applied",
+				loadedEmployees.size(), loadedDepartments.size(), System.currentTimeMillis() - start, applied);
+	}
+
+	/**
+	 * Applies a change unless the index already shows a later version of the
+	 * employee, with the write lock held. A change without a version is applied.
+	 */
+	private void apply(EmployeeChange change) {
+		pruneTombstones(change.getSequence());
+		long known = versions.get(change.getEmployeeId());
+		if (known == DELETED) {
+			return;
+		}
+		if (change.getType() == EmployeeChange.ChangeType.DELETED) {
+			versions.put(change.getEmployeeId(), DELETED);
+			tombstones.add(change);
+		} else if (change.getVersion() != null) {
+			if (known != LongLongHashMap.NO_VALUE && change.getVersion() <= known) {
+				return;
+			}
+			versions.put(change.getEmployeeId(), change.getVersion());
+		}
+		long previous = employees.remove(change.getEmployeeId());
+		String previousDepartment = null;
+		BigDecimal previousSalary = null;
+		if (previous != LongLongHashMap.NO_VALUE) {
+			DepartmentSalaries salaries = departmentsByCode.get(departmentCode(previous));
+			salaries.remove(cents(previous));
+			previousDepartment = salaries.name;
+			previousSalary = BigDecimal.valueOf(cents(previous), 2);
+		}
+		EmployeeDto employee = change.getEmployee();
+		if (employee == null) {
+			return;
+		}
+		// a patch only carries the changed fields
+		boolean patch = change.getType() == EmployeeChange.ChangeType.PATCHED;
+		String department = employee.getDepartment() != null || !patch ? employee.getDepartment()
+				: previousDepartment;
+		BigDecimal salary = employee.getSalary() != null || !patch ? employee.getSalary() : previousSalary;
+		if (department == null || !indexable(salary)) {
+			return;
+		}
+		DepartmentSalaries salaries = departments.computeIfAbsent(department, name -> {
+			DepartmentSalaries added = new DepartmentSalaries(departmentsByCode.size(), name);
+			departmentsByCode.add(added);
+			return added;
+		});
+		long cents = toCents(salary);
+		salaries.insert(cents);
+		employees.put(change.getEmployeeId(), pack(salaries.code, cents));
+	}
+
+	/**
+	 * Forgets the deleted employees whose delete is more than the tombstone
+	 * sequences behind the given sequence, with the write lock held.
+	 */
+	private void pruneTombstones(long sequence) {
+		while (!tombstones.isEmpty() && tombstones.peek().getSequence() < sequence - tombstoneSequences) {
+			Long employeeId = tombstones.poll().getEmployeeId();
+			if (versions.get(employeeId) == DELETED) {
+				versions.remove(employeeId);
+			}
+		}
+	}
+
+	private static boolean indexable(BigDecimal salary) {
+		return salary != null && Math.abs(toCents(salary)) <= MAX_CENTS;
+	}
+
+	private static long pack(int departmentCode, long cents) {
+		return ((long) departmentCode << CENTS_BITS) | (cents & CENTS_MASK);
+	}
+
+	private static int departmentCode(long packed) {
+		return (int) (packed >>> CENTS_BITS);
+	}
+
+	private static long cents(long packed) {
+		// sign-extend the low bits
+		return (packed << (Long.SIZE - CENTS_BITS)) >> (Long.SIZE - CENTS_BITS);
+	}
+
+	/**
+	 * Sorted salaries in cents of one department.
+	 */
+	private static class DepartmentSalaries {
+
+		private final int code;
+
+		private final String name;
+
+		private long[] cents = new long[16];
+
+		private int size;
+
+		DepartmentSalaries(int code, String name) {
+			this.code = code;
+			this.name = name;
+		}
+
+		void append(long value) {
+			grow();
+			cents[size++] = value;
+		}
+
+		void sort() {
+			Arrays.sort(cents, 0, size);
+		}
+
+		void insert(long value) {
+			grow();
+			int index = lowerBound(value);
+			System.arraycopy(cents, index, cents, index + 1, size - index);
+			cents[index] = value;
+			size++;
+		}
+
+		void remove(long value) {
+			int index = lowerBound(value);
+			if (index < size && cents[index] == value) {
+				System.arraycopy(cents, index + 1, cents, index, size - index - 1);
+				size--;
+			}
+		}
+
+		/** Index of the first salary not below the value. */
+		int lowerBound(long value) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (cents[middle] < value) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		private void grow() {
+			if (size == cents.length) {
+				cents = Arrays.copyOf(cents, size * 2);
+			}
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package jp.co.axa.apidemo.limiter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit adjusted by additive increase and multiplicative decrease
+ * from the observed latency. Each call taking less than the latency threshold
+ * while the limit is in use raises it by one, each slower or failed call cuts
+ * it by a tenth, so the limit settles near the concurrency the database can
+ * serve without queueing. Calls over the limit are refused rather than queued,
+ * so an overloaded service answers them right away.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private static final double BACKOFF_RATIO = 0.9;
+
+	private final String name;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final long latencyThresholdNanos;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final LongAdder shed = new LongAdder();
+
+	/** Exact limit, guarded by this. */
+	private double estimatedLimit;
+
+	private volatile int limit;
+
+	public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+			Duration latencyThreshold) {
+		if (minLimit < 1 || minLimit > maxLimit) {
+			throw new IllegalArgumentException("Invalid limits of " + name + ": " + minLimit + ".." + maxLimit);
+		}
+		this.name = name;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.latencyThresholdNanos = latencyThreshold.toNanos();
+		this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+		this.limit = (int) estimatedLimit;
+	}
+
+	/**
+	 * Take a permit if fewer calls than the limit are in flight. Every permit
+	 * taken must be given back with {@link #release(long, boolean)}.
+	 *
+	 * @return false if the call is over the limit and must be shed
+	 */
+	public boolean tryAcquire() {
+		int current;
+		do {
+			current = inFlight.get();
+			if (current >= limit) {
+				shed.increment();
+				return false;
+			}
+		} while (!inFlight.compareAndSet(current, current + 1));
+		return true;
+	}
+
+	/**
+	 * Give back a permit and adjust the limit from the call it covered.
+	 *
+	 * @param latencyNanos the duration of the call
+	 * @param failed       true if the call failed because the database was
+	 *                     overloaded or unavailable
+	 */
+	public void release(long latencyNanos, boolean failed) {
+		int current = inFlight.getAndDecrement();
+		synchronized (this) {
+			if (failed || latencyNanos > latencyThresholdNanos) {
+				estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+			} else if (current * 2 >= estimatedLimit) {
+				// only grow a limit the traffic actually reaches
+				estimatedLimit = Math.min(maxLimit, estimatedLimit + 1);
+			}
+			limit = (int) estimatedLimit;
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public long getShedCount() {
+		return shed.sum();
+	}
+}
@@ -0,0 +1,140 @@
+package jp.co.axa.apidemo.limiter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionException;
+
+import jp.co.axa.apidemo.cache.CacheConfig;
+import jp.co.axa.apidemo.exception.ServiceOverloadedException;
+import jp.co.axa.apidemo.services.EmployeeService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Puts the employee service calls behind adaptive concurrency limits, one for
+ * the reads and one for the writes, so a burst of slow writes cannot starve the
+ * reads and the other way round. The limit is checked outside of the cache, but
+ * an employee already cached, or already known to be missing, is answered
+ * without a permit: those hits cost no database work and are never shed.
+ * Streaming, batch import and preloading are long by nature and left unlimited.
+ */
+@Slf4j
+public class ConcurrencyLimitPostProcessor implements BeanPostProcessor {
+
+	private static final Map<String, String> OPERATIONS = new HashMap<>();
+
+	static {
+		for (String method : Arrays.asList("retrieveEmployees", "retrieveEmployeeFields", "searchEmployees",
+				"getEmployee", "getEmployees")) {
+			OPERATIONS.put(method, "read");
+		}
+		for (String method : Arrays.asList("saveEmployee", "updateEmployee", "patchEmployee", "deleteEmployee",
+				"deleteEmployees")) {
+			OPERATIONS.put(method, "write");
+		}
+	}
+
+	private final ObjectProvider<CacheManager> cacheManager;
+
+	private final boolean enabled;
+
+	private final Map<String, AdaptiveConcurrencyLimiter> limiters = new HashMap<>();
+
+	public ConcurrencyLimitPostProcessor(Environment environment, ObjectProvider<CacheManager> cacheManager) {
+		this.cacheManager = cacheManager;
+		this.enabled = environment.getProperty("employee.limiter.enabled", Boolean.class, true);
+		limiters.put("read", limiter(environment, "read", 20, 200, Duration.ofMillis(50)));
+		limiters.put("write", limiter(environment, "write", 10, 50, Duration.ofMillis(200)));
+	}
+
+	/**
+	 * Gets the limiters.
+	 *
+	 * @return the read and write limiters
+	 */
+	public List<AdaptiveConcurrencyLimiter> getLimiters() {
+		return Arrays.asList(limiters.get("read"), limiters.get("write"));
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (enabled && bean instanceof EmployeeService && bean instanceof Advised) {
+			((Advised) bean).addAdvice(0, limitingInterceptor());
+			log.info("Employee service limited to {}", getLimiters().stream()
+					.map(limiter -> limiter.getLimit() + " " + limiter.getName() + "s")
+					.collect(Collectors.joining(", ")));
+		}
+		return bean;
+	}
+
+	private MethodInterceptor limitingInterceptor() {
+		return invocation -> {
+			String operation = OPERATIONS.get(invocation.getMethod().getName());
+			if (operation == null || isCachedEmployee(invocation)) {
+				return invocation.proceed();
+			}
+			AdaptiveConcurrencyLimiter limiter = limiters.get(operation);
+			if (!limiter.tryAcquire()) {
+				throw new ServiceOverloadedException("Concurrency limit of " + operation + "s reached");
+			}
+			long start = System.nanoTime();
+			boolean failed = false;
+			try {
+				return invocation.proceed();
+			} catch (DataAccessException | TransactionException ex) {
+				failed = true;
+				throw ex;
+			} finally {
+				limiter.release(System.nanoTime() - start, failed);
+			}
+		};
+	}
+
+	private boolean isCachedEmployee(MethodInvocation invocation) {
+		Object[] arguments = invocation.getArguments();
+		if (!"getEmployee".equals(invocation.getMethod().getName()) || arguments[0] == null) {
+			return false;
+		}
+		CacheManager caches = cacheManager.getIfAvailable();
+		return caches != null && (isCached(caches.getCache(CacheConfig.EMPLOYEE), arguments[0])
+				|| isCached(caches.getCache(CacheConfig.MISSING_EMPLOYEE), arguments[0]));
+	}
+
+	/**
+	 * Looks the key up without counting a hit or a miss, the cache statistics only
+	 * count the lookups of the service.
+	 */
+	private static boolean isCached(Cache cache, Object key) {
+		if (cache == null) {
+			return false;
+		}
+		Object nativeCache = cache.getNativeCache();
+		if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+			return ((com.github.benmanes.caffeine.cache.Cache<?, ?>) nativeCache).asMap().containsKey(key);
+		}
+		return cache.get(key) != null;
+	}
+
+	private static AdaptiveConcurrencyLimiter limiter(Environment environment, String operation, int initialLimit,
+			int maxLimit, Duration latencyThreshold) {
+		String prefix = "employee.limiter." + operation + ".";
+		return new AdaptiveConcurrencyLimiter(operation,
+				environment.getProperty(prefix + "initial-limit", Integer.class, initialLimit),
+				environment.getProperty(prefix + "min-limit", Integer.class, 1),
+				environment.getProperty(prefix + "max-limit", Integer.class, maxLimit),
+				environment.getProperty(prefix + "latency-threshold", Duration.class, latencyThreshold));
+	}
+}
@@ -0,0 +1,40 @@
+package jp.co.axa.apidemo.limiter;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Concurrency limit configuration, publishing the current limits, the calls in
+ * flight and the calls shed by operation so the limits can be tuned.
+ */
+@Configuration
+public class LimiterConfig {
+
+	@Bean
+	public static ConcurrencyLimitPostProcessor concurrencyLimitPostProcessor(Environment environment,
+			ObjectProvider<CacheManager> cacheManager) {
+		return new ConcurrencyLimitPostProcessor(environment, cacheManager);
+	}
+
+	@Bean
+	public MeterBinder employeeLimiterMetrics(ConcurrencyLimitPostProcessor concurrencyLimitPostProcessor) {
+		return registry -> concurrencyLimitPostProcessor.getLimiters().forEach(limiter -> {
+			Gauge.builder("employee.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+					.tag("operation", limiter.getName()).description("Current concurrency limit")
+					.register(registry);
+			Gauge.builder("employee.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+					.tag("operation", limiter.getName()).description("Calls holding a permit")
+					.register(registry);
+			FunctionCounter.builder("employee.limiter.shed", limiter, AdaptiveConcurrencyLimiter::getShedCount)
+					.tag("operation", limiter.getName()).description("Calls refused over the limit")
+					.register(registry);
+		});
+	}
+}
@@ -0,0 +1,43 @@
+package jp.co.axa.apidemo.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Metrics configuration adding the statement counts, serialization and
+ * repository timers next to the request, connection pool and cache metrics of
+ * Actuator.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+	@Autowired
+	private ObjectProvider<MeterRegistry> meterRegistry;
+
+	@Bean
+	public static RepositoryMetricsPostProcessor repositoryMetricsPostProcessor(
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		return new RepositoryMetricsPostProcessor(meterRegistry);
+	}
+
+	@Bean
+	public TimedMappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+		return new TimedMappingJackson2HttpMessageConverter(objectMapper, meterRegistry);
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		MeterRegistry metrics = meterRegistry.getIfAvailable();
+		if (metrics != null) {
+			registry.addInterceptor(new StatementCountInterceptor(metrics));
+		}
+	}
+}
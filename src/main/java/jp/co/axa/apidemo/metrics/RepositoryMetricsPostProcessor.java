@@ -0,0 +1,63 @@
+package jp.co.axa.apidemo.metrics;
+
+import java.util.Arrays;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Adds a timer to every Spring Data repository, recorded as
+ * {@code repository.invocations} and tagged by repository, method and
+ * exception, so the time spent in the database is visible per query.
+ */
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+	static final String METRIC_NAME = "repository.invocations";
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	public RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof Repository && bean instanceof Advised) {
+			Advised advised = (Advised) bean;
+			String repository = Arrays.stream(advised.getProxiedInterfaces())
+					.filter(Repository.class::isAssignableFrom).findFirst()
+					.map(Class::getSimpleName).orElse(beanName);
+			advised.addAdvice(0, timingInterceptor(repository));
+		}
+		return bean;
+	}
+
+	private MethodInterceptor timingInterceptor(String repository) {
+		return invocation -> {
+			MeterRegistry registry = meterRegistry.getIfAvailable();
+			if (registry == null) {
+				return invocation.proceed();
+			}
+			Timer.Sample sample = Timer.start(registry);
+			String exception = "none";
+			try {
+				return invocation.proceed();
+			} catch (Throwable throwable) {
+				exception = throwable.getClass().getSimpleName();
+				throw throwable;
+			} finally {
+				sample.stop(Timer.builder(METRIC_NAME)
+						.tag("repository", repository)
+						.tag("method", invocation.getMethod().getName())
+						.tag("exception", exception)
+						.register(registry));
+			}
+		};
+	}
+}
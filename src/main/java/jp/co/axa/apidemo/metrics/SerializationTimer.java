@@ -0,0 +1,58 @@
+package jp.co.axa.apidemo.metrics;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times the serialization of the response bodies of one message converter as
+ * {@code http.server.requests.serialization}, tagged by the body type and the
+ * format, so a slow response can be told apart from a slow query and the
+ * formats compared.
+ */
+public class SerializationTimer {
+
+	static final String METRIC_NAME = "http.server.requests.serialization";
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	private final String format;
+
+	public SerializationTimer(ObjectProvider<MeterRegistry> meterRegistry, String format) {
+		this.meterRegistry = meterRegistry;
+		this.format = format;
+	}
+
+	/**
+	 * Writes the body, timed when a meter registry is available.
+	 *
+	 * @param object the body
+	 * @param write  the serialization of the body
+	 * @throws IOException when writing fails
+	 */
+	public void time(Object object, Write write) throws IOException {
+		MeterRegistry registry = meterRegistry.getIfAvailable();
+		if (registry == null) {
+			write.write();
+			return;
+		}
+		Timer.Sample sample = Timer.start(registry);
+		try {
+			write.write();
+		} finally {
+			sample.stop(Timer.builder(METRIC_NAME)
+					.tag("type", object == null ? "null" : object.getClass().getSimpleName())
+					.tag("format", format)
+					.register(registry));
+		}
+	}
+
+	@FunctionalInterface
+	public interface Write {
+
+		void write() throws IOException;
+	}
+}
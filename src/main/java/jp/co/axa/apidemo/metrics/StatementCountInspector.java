@@ -0,0 +1,45 @@
+package jp.co.axa.apidemo.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector counting the SQL statements prepared by the
+ * current thread while a count is started. It is instantiated by Hibernate
+ * from {@code hibernate.session_factory.statement_inspector}, so the count is
+ * kept in a thread local rather than in a bean. Statements issued through
+ * {@code JdbcTemplate} do not go through Hibernate and are not counted.
+ */
+public class StatementCountInspector implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+	@Override
+	public String inspect(String sql) {
+		int[] count = COUNT.get();
+		if (count != null) {
+			count[0]++;
+		}
+		return sql;
+	}
+
+	/**
+	 * Start counting the statements of the current thread.
+	 */
+	public static void start() {
+		COUNT.set(new int[1]);
+	}
+
+	/**
+	 * Stop counting the statements of the current thread.
+	 *
+	 * @return the number of statements since the count was started, 0 if it was
+	 *         not started
+	 */
+	public static int stop() {
+		int[] count = COUNT.get();
+		COUNT.remove();
+		return count == null ? 0 : count[0];
+	}
+}
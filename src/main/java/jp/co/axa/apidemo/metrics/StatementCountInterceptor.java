@@ -0,0 +1,59 @@
+package jp.co.axa.apidemo.metrics;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records the number of SQL statements of each request as the
+ * {@code http.server.requests.statements} summary, tagged like the request
+ * timer. The asynchronous APIs run their statements on the employee executor,
+ * so their requests are not recorded.
+ */
+public class StatementCountInterceptor implements AsyncHandlerInterceptor {
+
+	static final String METRIC_NAME = "http.server.requests.statements";
+
+	private final MeterRegistry meterRegistry;
+
+	public StatementCountInterceptor(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (request.getDispatcherType() == DispatcherType.REQUEST) {
+			StatementCountInspector.start();
+		}
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		StatementCountInspector.stop();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception exception) {
+		if (request.getDispatcherType() != DispatcherType.REQUEST) {
+			return;
+		}
+		int statements = StatementCountInspector.stop();
+		Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		DistributionSummary.builder(METRIC_NAME)
+				.baseUnit("statements")
+				.tag("method", request.getMethod())
+				.tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+				.tag("status", Integer.toString(response.getStatus()))
+				.register(meterRegistry)
+				.record(statements);
+	}
+}
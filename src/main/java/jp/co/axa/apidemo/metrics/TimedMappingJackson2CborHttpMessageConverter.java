@@ -0,0 +1,32 @@
+package jp.co.axa.apidemo.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * CBOR message converter timing the serialization of the response bodies with
+ * a {@link SerializationTimer}.
+ */
+public class TimedMappingJackson2CborHttpMessageConverter extends MappingJackson2CborHttpMessageConverter {
+
+	private final SerializationTimer serializationTimer;
+
+	public TimedMappingJackson2CborHttpMessageConverter(ObjectMapper objectMapper,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		super(objectMapper);
+		this.serializationTimer = new SerializationTimer(meterRegistry, "cbor");
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+		serializationTimer.time(object, () -> super.writeInternal(object, type, outputMessage));
+	}
+}
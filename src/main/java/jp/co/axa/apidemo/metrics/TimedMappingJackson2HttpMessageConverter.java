@@ -0,0 +1,33 @@
+package jp.co.axa.apidemo.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * JSON message converter timing the serialization of the response bodies with
+ * a {@link SerializationTimer}. The streamed export writes its own JSON and is
+ * not timed here.
+ */
+public class TimedMappingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+	private final SerializationTimer serializationTimer;
+
+	public TimedMappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		super(objectMapper);
+		this.serializationTimer = new SerializationTimer(meterRegistry, "json");
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+		serializationTimer.time(object, () -> super.writeInternal(object, type, outputMessage));
+	}
+}
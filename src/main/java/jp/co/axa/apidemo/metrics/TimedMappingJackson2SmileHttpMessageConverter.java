@@ -0,0 +1,32 @@
+package jp.co.axa.apidemo.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Smile message converter timing the serialization of the response bodies with
+ * a {@link SerializationTimer}.
+ */
+public class TimedMappingJackson2SmileHttpMessageConverter extends MappingJackson2SmileHttpMessageConverter {
+
+	private final SerializationTimer serializationTimer;
+
+	public TimedMappingJackson2SmileHttpMessageConverter(ObjectMapper objectMapper,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		super(objectMapper);
+		this.serializationTimer = new SerializationTimer(meterRegistry, "smile");
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+		serializationTimer.time(object, () -> super.writeInternal(object, type, outputMessage));
+	}
+}
@@ -0,0 +1,47 @@
+package jp.co.axa.apidemo.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import lombok.Data;
+
+/**
+ * Headcount and salary aggregates of one department.
+ */
+@Data
+public class DepartmentStatsDto {
+
+	private String department;
+
+	private long count;
+
+	private BigDecimal totalSalary;
+
+	private BigDecimal averageSalary;
+
+	private BigDecimal minSalary;
+
+	private BigDecimal maxSalary;
+
+	/**
+	 * Creates the stats from the result of a {@code GROUP BY} query, where the
+	 * average comes back as a double.
+	 *
+	 * @param department    the department
+	 * @param count         the number of employees
+	 * @param totalSalary   the salary sum
+	 * @param averageSalary the salary average
+	 * @param minSalary     the lowest salary
+	 * @param maxSalary     the highest salary
+	 */
+	public DepartmentStatsDto(String department, Long count, BigDecimal totalSalary, Double averageSalary,
+			BigDecimal minSalary, BigDecimal maxSalary) {
+		this.department = department;
+		this.count = count;
+		this.totalSalary = totalSalary;
+		this.averageSalary = averageSalary == null ? null
+				: BigDecimal.valueOf(averageSalary).setScale(2, RoundingMode.HALF_UP);
+		this.minSalary = minSalary;
+		this.maxSalary = maxSalary;
+	}
+}
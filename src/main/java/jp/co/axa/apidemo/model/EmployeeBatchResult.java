@@ -0,0 +1,51 @@
+package jp.co.axa.apidemo.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Outcome of a bulk employee import, with one entry per received row and the
+ * throughput achieved.
+ */
+@Data
+@Builder
+public class EmployeeBatchResult {
+
+	private int received;
+
+	private int inserted;
+
+	private int rejected;
+
+	private long elapsedMillis;
+
+	private double rowsPerSecond;
+
+	private List<RowResult> rows;
+
+	/**
+	 * Status of a single row of the import.
+	 */
+	public enum RowStatus {
+		CREATED, REJECTED
+	}
+
+	/**
+	 * Result of a single row, the id is set once the row is inserted.
+	 */
+	@Data
+	@AllArgsConstructor
+	public static class RowResult {
+
+		private int row;
+
+		private RowStatus status;
+
+		private Long id;
+
+		private List<String> errors;
+	}
+}
@@ -0,0 +1,40 @@
+package jp.co.axa.apidemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One mutation of an employee in the change feed, numbered by a sequence that
+ * increases with every change. Changes are recorded once committed, so two
+ * changes of the same employee committed at the same time can be recorded in
+ * either order; the version of the employee tells which one is the latest.
+ */
+@Data
+@AllArgsConstructor
+public class EmployeeChange {
+
+	private long sequence;
+
+	private ChangeType type;
+
+	private Long employeeId;
+
+	/**
+	 * Version of the employee after the change, null for a delete. A consumer
+	 * ignores a change older than the version it already has, and any change
+	 * following a delete, as ids are not reused.
+	 */
+	private Long version;
+
+	/** The employee after the change, only the changed fields for a patch and null for a delete. */
+	private EmployeeDto employee;
+
+	private long timestamp;
+
+	/**
+	 * Kind of mutation.
+	 */
+	public enum ChangeType {
+		CREATED, UPDATED, PATCHED, DELETED
+	}
+}
@@ -0,0 +1,18 @@
+package jp.co.axa.apidemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of a bulk employee deletion.
+ */
+@Data
+@AllArgsConstructor
+public class EmployeeDeleteResult {
+
+	/** Number of ids in the request. */
+	private int requested;
+
+	/** Number of employees actually deleted, ids already gone are not counted. */
+	private int deleted;
+}
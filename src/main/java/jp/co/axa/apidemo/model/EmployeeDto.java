@@ -6,11 +6,13 @@ import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotEmpty;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class EmployeeDto {
 
 	private Long id;
@@ -25,4 +27,7 @@ public class EmployeeDto {
 	@NotEmpty
 	private String department;
 
+	/** Optimistic locking version, also exposed as the ETag of the employee. */
+	private Long version;
+
 }
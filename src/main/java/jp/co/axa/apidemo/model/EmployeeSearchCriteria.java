@@ -0,0 +1,24 @@
+package jp.co.axa.apidemo.model;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+/**
+ * Optional filters of the employee search, all given filters must match.
+ */
+@Data
+public class EmployeeSearchCriteria {
+
+	/** Exact department. */
+	private String department;
+
+	/** Prefix of the employee name. */
+	private String name;
+
+	/** Lowest salary, inclusive. */
+	private BigDecimal minSalary;
+
+	/** Highest salary, inclusive. */
+	private BigDecimal maxSalary;
+}
@@ -0,0 +1,23 @@
+package jp.co.axa.apidemo.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Outcome of an employee snapshot export or restore, with the throughput
+ * achieved.
+ */
+@Data
+@Builder
+public class EmployeeSnapshotResult {
+
+	private String name;
+
+	private long employees;
+
+	private long bytes;
+
+	private long elapsedMillis;
+
+	private double rowsPerSecond;
+}
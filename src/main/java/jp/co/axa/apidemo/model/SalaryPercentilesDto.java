@@ -0,0 +1,23 @@
+package jp.co.axa.apidemo.model;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Salary percentiles of one department.
+ */
+@Data
+@Builder
+public class SalaryPercentilesDto {
+
+	private String department;
+
+	/** Number of employees with a salary. */
+	private int employees;
+
+	/** Salaries by requested percentile, in the requested order. */
+	private Map<String, BigDecimal> percentiles;
+}
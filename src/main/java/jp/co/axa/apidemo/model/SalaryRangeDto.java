@@ -0,0 +1,24 @@
+package jp.co.axa.apidemo.model;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Number of employees of one department in a salary range.
+ */
+@Data
+@Builder
+public class SalaryRangeDto {
+
+	private String department;
+
+	/** Lowest salary, inclusive, null when unbounded. */
+	private BigDecimal minSalary;
+
+	/** Highest salary, exclusive, null when unbounded. */
+	private BigDecimal maxSalary;
+
+	private int employees;
+}
@@ -1,13 +1,98 @@
 package jp.co.axa.apidemo.repositories;
 
-import jp.co.axa.apidemo.entities.Employee;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.model.DepartmentStatsDto;
+import jp.co.axa.apidemo.model.EmployeeDto;
 
 /**
  * The data access layer, employee repository responsible for database
  * operation.
  */
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeRepositoryCustom {
+
+	/**
+	 * Keyset page of employees whose id is greater than the given cursor, ordered
+	 * by id. The rows are projected straight into {@link EmployeeDto} so no entity
+	 * is hydrated.
+	 *
+	 * @param after    the last id of the previous page
+	 * @param pageable the page size (page number must be 0)
+	 * @return the employees of the page
+	 */
+	@Query("select new jp.co.axa.apidemo.model.EmployeeDto(e.id, e.name, e.salary, e.department, e.version)"
+			+ " from Employee e where e.id > :after order by e.id")
+	List<EmployeeDto> findPageAfter(@Param("after") Long after, Pageable pageable);
+
+	/**
+	 * Streams every employee ordered by id from a forward-only JDBC cursor. Must be
+	 * consumed inside a transaction and closed afterwards.
+	 *
+	 * @return the employee stream
+	 */
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("select new jp.co.axa.apidemo.model.EmployeeDto(e.id, e.name, e.salary, e.department, e.version)"
+			+ " from Employee e order by e.id")
+	Stream<EmployeeDto> streamAll();
+
+	/**
+	 * Deletes the employee with one {@code DELETE} statement, without loading it
+	 * first.
+	 *
+	 * @param id the employee id
+	 * @return the number of deleted rows, 0 when the employee does not exist
+	 */
+	@Transactional
+	@Modifying
+	@Query("delete from Employee e where e.id = :id")
+	int deleteEmployeeById(@Param("id") Long id);
+
+	/**
+	 * Deletes the employee only if it still has the given version.
+	 *
+	 * @param id      the employee id
+	 * @param version the expected version
+	 * @return the number of deleted rows
+	 */
+	@Transactional
+	@Modifying
+	@Query("delete from Employee e where e.id = :id and e.version = :version")
+	int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+	/**
+	 * Headcount and salary aggregates of every department, computed with one
+	 * {@code GROUP BY} query.
+	 *
+	 * @return the stats ordered by department
+	 */
+	@Query("select new jp.co.axa.apidemo.model.DepartmentStatsDto(e.department, count(e), sum(e.salary),"
+			+ " avg(e.salary), min(e.salary), max(e.salary)) from Employee e group by e.department order by e.department")
+	List<DepartmentStatsDto> findDepartmentStats();
+
+	/**
+	 * Headcount and salary aggregates of one department, read through the
+	 * department index.
+	 *
+	 * @param department the department
+	 * @return the stats, empty when the department has no employee
+	 */
+	@Query("select new jp.co.axa.apidemo.model.DepartmentStatsDto(e.department, count(e), sum(e.salary),"
+			+ " avg(e.salary), min(e.salary), max(e.salary)) from Employee e where e.department = :department"
+			+ " group by e.department")
+	Optional<DepartmentStatsDto> findDepartmentStats(@Param("department") String department);
 }
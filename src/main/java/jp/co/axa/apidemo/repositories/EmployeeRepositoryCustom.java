@@ -0,0 +1,129 @@
+package jp.co.axa.apidemo.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.model.EmployeeSearchCriteria;
+
+/**
+ * Employee repository operations that are implemented by hand instead of being
+ * derived by Spring Data.
+ */
+public interface EmployeeRepositoryCustom {
+
+	/**
+	 * Inserts the employees with one JDBC batch and one commit. Hibernate can not
+	 * batch inserts for {@code IDENTITY} ids, so this goes straight to JDBC.
+	 *
+	 * @param employees the employees to insert
+	 * @return the generated ids, in the same order as the given employees
+	 */
+	List<Long> batchInsert(List<Employee> employees);
+
+	/**
+	 * Inserts the employees with their own ids and versions, with one JDBC batch
+	 * and one commit. Used to restore a snapshot, the generated ids have to be
+	 * restarted afterwards with {@link #restartIds()}.
+	 *
+	 * @param employees the employees to insert
+	 */
+	void insertWithIds(List<Employee> employees);
+
+	/**
+	 * Restarts the generated ids after the highest stored id.
+	 */
+	void restartIds();
+
+	/**
+	 * Deletes all the employees with one statement.
+	 */
+	void truncate();
+
+	/**
+	 * Drops the secondary indexes of the employee table, so a bulk load does not
+	 * maintain them row by row.
+	 *
+	 * @return the statements recreating the dropped indexes
+	 */
+	List<String> dropSecondaryIndexes();
+
+	/**
+	 * Recreates indexes dropped by {@link #dropSecondaryIndexes()}, each one is
+	 * built from the loaded rows at once.
+	 *
+	 * @param createStatements the statements returned when dropping them
+	 */
+	void createIndexes(List<String> createStatements);
+
+	/**
+	 * Reads all the employees ordered by id from a forward-only cursor. Each row is
+	 * passed to the consumer as a detached employee and not kept, so the whole
+	 * table is never held in memory.
+	 *
+	 * @param consumer the consumer of each employee
+	 */
+	void scanEmployees(Consumer<Employee> consumer);
+
+	/**
+	 * Updates only the non-null fields of the given changes with a single
+	 * {@code UPDATE} statement, without loading the employee first. The version is
+	 * incremented, and when the changes carry a version the row is only updated if
+	 * it still has that version. Without one, the new version is read back in the
+	 * same transaction.
+	 *
+	 * @param employeeId the employee id
+	 * @param changes    the fields to change, null fields are left untouched
+	 * @return the new version, null when the employee does not exist or has
+	 *         another version
+	 */
+	Long updatePartially(Long employeeId, EmployeeDto changes);
+
+	/**
+	 * Replaces the name, salary and department of the given employees in one
+	 * transaction, so their updates share a single commit. The employees are
+	 * loaded in chunks of bounded IN-lists and written back at commit, each with
+	 * its version incremented. Unknown ids are ignored.
+	 *
+	 * @param employeeDtos the new details by employee id
+	 * @return the updated employees, with their new versions once committed
+	 */
+	List<Employee> updateAll(Map<Long, EmployeeDto> employeeDtos);
+
+	/**
+	 * Deletes the employees with {@code DELETE ... WHERE ID IN (...)} statements
+	 * of bounded IN-lists, all in one transaction. Each chunk first selects and
+	 * locks the rows that exist, then deletes exactly those. Unknown ids are
+	 * ignored.
+	 *
+	 * @param employeeIds the employee ids
+	 * @return the ids of the deleted employees
+	 */
+	List<Long> deleteAllByIdIn(Collection<Long> employeeIds);
+
+	/**
+	 * Keyset page of the employees matching the criteria, ordered by id. The query
+	 * is built from the given filters only and projects straight into
+	 * {@link EmployeeDto}.
+	 *
+	 * @param criteria the filters
+	 * @param after    the last id of the previous page
+	 * @param limit    the page size
+	 * @return the matching employees of the page
+	 */
+	List<EmployeeDto> search(EmployeeSearchCriteria criteria, Long after, int limit);
+
+	/**
+	 * Employees ordered by id with only the given fields selected, each row as a
+	 * map from field name to value in the order of the fields.
+	 *
+	 * @param fields the employee attributes to select, they must exist
+	 * @param after  the last id of the previous page, null for the first page
+	 * @param limit  the page size, null for all the employees
+	 * @return the rows
+	 */
+	List<Map<String, Object>> findFields(List<String> fields, Long after, Integer limit);
+}
@@ -0,0 +1,276 @@
+package jp.co.axa.apidemo.repositories;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.model.EmployeeSearchCriteria;
+
+/**
+ * JDBC based implementation of {@link EmployeeRepositoryCustom}.
+ */
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+	private static final String INSERT_EMPLOYEE = "INSERT INTO EMPLOYEE (EMPLOYEE_NAME, EMPLOYEE_SALARY, DEPARTMENT, VERSION) VALUES (?, ?, ?, 0)";
+
+	private static final String INSERT_EMPLOYEE_WITH_ID = "INSERT INTO EMPLOYEE (ID, EMPLOYEE_NAME, EMPLOYEE_SALARY, DEPARTMENT, VERSION) VALUES (?, ?, ?, ?, ?)";
+
+	private static final String SELECT_EMPLOYEES = "SELECT ID, EMPLOYEE_NAME, EMPLOYEE_SALARY, DEPARTMENT, VERSION FROM EMPLOYEE ORDER BY ID";
+
+	/** Rows fetched at once by the cursor of {@link #scanEmployees(Consumer)}. */
+	private static final int SCAN_FETCH_SIZE = 1000;
+
+	/** Largest IN-list of one delete or select statement. */
+	private static final int DELETE_CHUNK_SIZE = 1000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@Transactional
+	public List<Long> batchInsert(List<Employee> employees) {
+		return jdbcTemplate.execute(
+				connection -> connection.prepareStatement(INSERT_EMPLOYEE, Statement.RETURN_GENERATED_KEYS),
+				(PreparedStatement statement) -> {
+					for (Employee employee : employees) {
+						statement.setString(1, employee.getName());
+						statement.setBigDecimal(2, employee.getSalary());
+						statement.setString(3, employee.getDepartment());
+						statement.addBatch();
+					}
+					statement.executeBatch();
+					List<Long> ids = new ArrayList<>(employees.size());
+					try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+						while (generatedKeys.next()) {
+							ids.add(generatedKeys.getLong(1));
+						}
+					}
+					return ids;
+				});
+	}
+
+	@Override
+	@Transactional
+	public void insertWithIds(List<Employee> employees) {
+		jdbcTemplate.batchUpdate(INSERT_EMPLOYEE_WITH_ID, employees, employees.size(), (statement, employee) -> {
+			statement.setLong(1, employee.getId());
+			statement.setString(2, employee.getName());
+			statement.setBigDecimal(3, employee.getSalary());
+			statement.setString(4, employee.getDepartment());
+			statement.setObject(5, employee.getVersion(), Types.BIGINT);
+		});
+	}
+
+	@Override
+	@Transactional
+	public void restartIds() {
+		Long nextId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(ID), 0) + 1 FROM EMPLOYEE", Long.class);
+		jdbcTemplate.execute("ALTER TABLE EMPLOYEE ALTER COLUMN ID RESTART WITH " + nextId);
+	}
+
+	@Override
+	@Transactional
+	public void truncate() {
+		jdbcTemplate.execute("TRUNCATE TABLE EMPLOYEE");
+	}
+
+	@Override
+	@Transactional
+	public List<String> dropSecondaryIndexes() {
+		List<Map<String, Object>> indexes = jdbcTemplate.queryForList(
+				"SELECT DISTINCT INDEX_NAME, SQL FROM INFORMATION_SCHEMA.INDEXES"
+						+ " WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'EMPLOYEE' AND NOT PRIMARY_KEY");
+		List<String> createStatements = new ArrayList<>(indexes.size());
+		for (Map<String, Object> index : indexes) {
+			jdbcTemplate.execute("DROP INDEX " + index.get("INDEX_NAME"));
+			createStatements.add((String) index.get("SQL"));
+		}
+		return createStatements;
+	}
+
+	@Override
+	@Transactional
+	public void createIndexes(List<String> createStatements) {
+		createStatements.forEach(jdbcTemplate::execute);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void scanEmployees(Consumer<Employee> consumer) {
+		jdbcTemplate.query(connection -> {
+			PreparedStatement statement = connection.prepareStatement(SELECT_EMPLOYEES, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			statement.setFetchSize(SCAN_FETCH_SIZE);
+			return statement;
+		}, (ResultSet resultSet) -> {
+			long version = resultSet.getLong(5);
+			consumer.accept(Employee.builder().id(resultSet.getLong(1)).name(resultSet.getString(2))
+					.salary(resultSet.getBigDecimal(3)).department(resultSet.getString(4))
+					.version(resultSet.wasNull() ? null : version).build());
+		});
+	}
+
+	@Override
+	@Transactional
+	public List<Long> deleteAllByIdIn(Collection<Long> employeeIds) {
+		List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(employeeIds));
+		List<Long> deleted = new ArrayList<>();
+		for (int from = 0; from < distinctIds.size(); from += DELETE_CHUNK_SIZE) {
+			// lock the existing rows so the delete removes exactly those
+			List<Long> existing = entityManager
+					.createQuery("select e.id from Employee e where e.id in :ids order by e.id", Long.class)
+					.setParameter("ids", distinctIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, distinctIds.size())))
+					.setLockMode(LockModeType.PESSIMISTIC_WRITE).getResultList();
+			if (existing.isEmpty()) {
+				continue;
+			}
+			entityManager.createQuery("delete from Employee e where e.id in :ids").setParameter("ids", existing)
+					.executeUpdate();
+			deleted.addAll(existing);
+		}
+		return deleted;
+	}
+
+	@Override
+	@Transactional
+	public List<Employee> updateAll(Map<Long, EmployeeDto> employeeDtos) {
+		List<Long> ids = new ArrayList<>(employeeDtos.keySet());
+		List<Employee> employees = new ArrayList<>(ids.size());
+		for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+			employees.addAll(entityManager.createQuery("select e from Employee e where e.id in :ids", Employee.class)
+					.setParameter("ids", ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size())))
+					.getResultList());
+		}
+		for (Employee employee : employees) {
+			EmployeeDto employeeDto = employeeDtos.get(employee.getId());
+			employee.setName(employeeDto.getName());
+			employee.setSalary(employeeDto.getSalary());
+			employee.setDepartment(employeeDto.getDepartment());
+		}
+		return employees;
+	}
+
+	@Override
+	@Transactional
+	public Long updatePartially(Long employeeId, EmployeeDto changes) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Employee> update = builder.createCriteriaUpdate(Employee.class);
+		Root<Employee> employee = update.from(Employee.class);
+		if (changes.getName() != null) {
+			update.set(employee.<String>get("name"), changes.getName());
+		}
+		if (changes.getSalary() != null) {
+			update.set(employee.<BigDecimal>get("salary"), changes.getSalary());
+		}
+		if (changes.getDepartment() != null) {
+			update.set(employee.<String>get("department"), changes.getDepartment());
+		}
+		update.set(employee.<Long>get("version"),
+				builder.sum(builder.coalesce(employee.<Long>get("version"), 0L), 1L));
+		if (changes.getVersion() == null) {
+			update.where(builder.equal(employee.get("id"), employeeId));
+		} else {
+			update.where(builder.equal(employee.get("id"), employeeId),
+					builder.equal(employee.get("version"), changes.getVersion()));
+		}
+		if (entityManager.createQuery(update).executeUpdate() == 0) {
+			return null;
+		}
+		if (changes.getVersion() != null) {
+			return changes.getVersion() + 1;
+		}
+		// the row stays locked until commit, so this is the version just written
+		return entityManager.createQuery("select e.version from Employee e where e.id = :id", Long.class)
+				.setParameter("id", employeeId).getSingleResult();
+	}
+
+	@Override
+	public List<EmployeeDto> search(EmployeeSearchCriteria criteria, Long after, int limit) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<EmployeeDto> query = builder.createQuery(EmployeeDto.class);
+		Root<Employee> employee = query.from(Employee.class);
+		List<Predicate> predicates = new ArrayList<>();
+		if (after != null) {
+			predicates.add(builder.greaterThan(employee.<Long>get("id"), after));
+		}
+		if (criteria.getDepartment() != null) {
+			predicates.add(builder.equal(employee.get("department"), criteria.getDepartment()));
+		}
+		if (criteria.getName() != null) {
+			predicates.add(builder.like(employee.<String>get("name"), escapeLike(criteria.getName()) + "%", '\\'));
+		}
+		if (criteria.getMinSalary() != null) {
+			predicates.add(builder.greaterThanOrEqualTo(employee.<BigDecimal>get("salary"), criteria.getMinSalary()));
+		}
+		if (criteria.getMaxSalary() != null) {
+			predicates.add(builder.lessThanOrEqualTo(employee.<BigDecimal>get("salary"), criteria.getMaxSalary()));
+		}
+		query.select(builder.construct(EmployeeDto.class, employee.get("id"), employee.get("name"),
+				employee.get("salary"), employee.get("department"), employee.get("version")))
+				.where(predicates.toArray(new Predicate[0])).orderBy(builder.asc(employee.get("id")));
+		return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+	}
+
+	@Override
+	public List<Map<String, Object>> findFields(List<String> fields, Long after, Integer limit) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = builder.createTupleQuery();
+		Root<Employee> employee = query.from(Employee.class);
+		List<Selection<?>> selections = new ArrayList<>(fields.size());
+		for (String field : fields) {
+			selections.add(employee.get(field).alias(field));
+		}
+		query.multiselect(selections).orderBy(builder.asc(employee.get("id")));
+		if (after != null) {
+			query.where(builder.greaterThan(employee.<Long>get("id"), after));
+		}
+		TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+		if (limit != null) {
+			typedQuery.setMaxResults(limit);
+		}
+		List<Tuple> tuples = typedQuery.getResultList();
+		List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+		for (Tuple tuple : tuples) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			for (String field : fields) {
+				row.put(field, tuple.get(field));
+			}
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	private static String escapeLike(String value) {
+		return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
+}
@@ -0,0 +1,87 @@
+package jp.co.axa.apidemo.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Authentication provider remembering successful username/password checks of
+ * its delegate for a short time, so a caller sending the same HTTP Basic
+ * credentials on every request pays the password hashing cost only once per
+ * expiry. Entries are keyed by an HMAC of the credentials with a key generated
+ * at startup, so no password is kept in memory. Failed checks are not cached.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	private final AuthenticationProvider delegate;
+
+	private final Cache<String, Authentication> authentications;
+
+	private final ThreadLocal<Mac> mac;
+
+	/**
+	 * Creates the provider.
+	 *
+	 * @param delegate the provider checking the credentials
+	 * @param spec     the Caffeine spec of the cache, which should be bounded and
+	 *                 expire soon since changes of the users are only seen on
+	 *                 expiry
+	 */
+	public CachingAuthenticationProvider(AuthenticationProvider delegate, String spec) {
+		this.delegate = delegate;
+		this.authentications = Caffeine.from(spec).build();
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		SecretKeySpec secretKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+		this.mac = ThreadLocal.withInitial(() -> {
+			try {
+				Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+				instance.init(secretKey);
+				return instance;
+			} catch (GeneralSecurityException exception) {
+				throw new IllegalStateException(exception);
+			}
+		});
+	}
+
+	@Override
+	public Authentication authenticate(Authentication authentication) {
+		if (!(authentication.getCredentials() instanceof String)) {
+			return delegate.authenticate(authentication);
+		}
+		String key = credentialsKey(authentication.getName(), (String) authentication.getCredentials());
+		Authentication cached = authentications.getIfPresent(key);
+		if (cached != null) {
+			return cached;
+		}
+		Authentication result = delegate.authenticate(authentication);
+		if (result != null && result.isAuthenticated()) {
+			authentications.put(key, result);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean supports(Class<?> authentication) {
+		return delegate.supports(authentication);
+	}
+
+	private String credentialsKey(String username, String password) {
+		Mac instance = mac.get();
+		instance.update(username.getBytes(StandardCharsets.UTF_8));
+		instance.update((byte) 0);
+		return Base64.getEncoder().encodeToString(instance.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -1,11 +1,18 @@
 package jp.co.axa.apidemo.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 
 /**
  * Security configuration class is use for handling security for the application
@@ -23,20 +30,47 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             "/configuration/security",
             "/swagger-ui.html",
             "/webjars/**",
-            "/h2-console/**"
+            "/h2-console/**",
+            //Health check, details are only shown to authenticated users
+            "/actuator/health"
     };
 
+	@Value("${security.authentication-cache.spec:maximumSize=1000,expireAfterWrite=60s}")
+	private String authenticationCacheSpec;
+
+	/** Password of the admin user, which only exists when it is set. */
+	@Value("${security.admin.password:}")
+	private String adminPassword;
+
 	@Override
 	protected void configure(HttpSecurity http) throws Exception {
 
 		http.csrf().disable().authorizeRequests()
-				.antMatchers(AUTH_WHITELIST).permitAll().and()
+				.antMatchers(AUTH_WHITELIST).permitAll()
+				.antMatchers("/api/v1/admin/**").hasRole("ADMIN").and()
 		        .headers().frameOptions().sameOrigin().and()
+		        .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
 				.authorizeRequests().anyRequest().authenticated().and().httpBasic();
 	}
 
+	/**
+	 * Users are checked against bcrypt hashes, and a successful check is cached
+	 * briefly so Basic callers do not pay the hashing cost on every request. The
+	 * admin endpoints need the admin user, configured with
+	 * {@code security.admin.password}.
+	 */
 	@Autowired
 	public void configureGlobal(AuthenticationManagerBuilder auth) throws Exception {
-		auth.inMemoryAuthentication().withUser("axa").password("{noop}axa").roles("USER");
+		PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+		DaoAuthenticationProvider userProvider = new DaoAuthenticationProvider();
+		userProvider.setPasswordEncoder(passwordEncoder);
+		InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(
+				User.withUsername("axa").password(passwordEncoder.encode("axa")).roles("USER").build());
+		if (!adminPassword.isEmpty()) {
+			users.createUser(User.withUsername("admin").password(passwordEncoder.encode(adminPassword))
+					.roles("USER", "ADMIN").build());
+		}
+		userProvider.setUserDetailsService(users);
+		auth.authenticationProvider(new CachingAuthenticationProvider(userProvider, authenticationCacheSpec));
 	}
 }
@@ -0,0 +1,52 @@
+package jp.co.axa.apidemo.services;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import jp.co.axa.apidemo.model.DepartmentStatsDto;
+import jp.co.axa.apidemo.model.SalaryPercentilesDto;
+import jp.co.axa.apidemo.model.SalaryRangeDto;
+
+/**
+ * Department service layer class use for the department level operations.
+ */
+public interface DepartmentService {
+
+	/**
+	 * This method returns the headcount and salary aggregates of every
+	 * department.
+	 *
+	 * @return the list
+	 */
+	public List<DepartmentStatsDto> retrieveDepartmentStats();
+
+	/**
+	 * This method returns the headcount and salary aggregates of the given
+	 * department.
+	 *
+	 * @param department the department
+	 * @return the department stats
+	 */
+	public DepartmentStatsDto getDepartmentStats(String department);
+
+	/**
+	 * This method returns salary percentiles of the given department, from the
+	 * in-memory salary index.
+	 *
+	 * @param department  the department
+	 * @param percentiles the percentiles, between 0 and 100
+	 * @return the salary percentiles
+	 */
+	public SalaryPercentilesDto getSalaryPercentiles(String department, List<Double> percentiles);
+
+	/**
+	 * This method returns the number of employees of the given department in a
+	 * salary range, from the in-memory salary index.
+	 *
+	 * @param department the department
+	 * @param minSalary  the lowest salary, inclusive, or null
+	 * @param maxSalary  the highest salary, exclusive, or null
+	 * @return the salary range count
+	 */
+	public SalaryRangeDto countSalaries(String department, BigDecimal minSalary, BigDecimal maxSalary);
+}
@@ -0,0 +1,127 @@
+package jp.co.axa.apidemo.services;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import jp.co.axa.apidemo.exception.InvalidRequestException;
+import jp.co.axa.apidemo.exception.RecordNotFoundException;
+import jp.co.axa.apidemo.exception.ServiceOverloadedException;
+import jp.co.axa.apidemo.index.SalaryIndex;
+import jp.co.axa.apidemo.model.DepartmentStatsDto;
+import jp.co.axa.apidemo.model.SalaryPercentilesDto;
+import jp.co.axa.apidemo.model.SalaryRangeDto;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+
+/**
+ * This class implements the department level operations, aggregated by the
+ * database from the employee records, in read-only transactions. The salary
+ * percentiles and ranges come from the in-memory salary index instead, without
+ * a transaction.
+ */
+@Service
+@Transactional(readOnly = true)
+public class DepartmentServiceImpl implements DepartmentService {
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private SalaryIndex salaryIndex;
+
+	@Autowired
+	private MessageSource messageSource;
+
+	/**
+	 * Retrieve the stats of every department.
+	 *
+	 * @return the list
+	 */
+	public List<DepartmentStatsDto> retrieveDepartmentStats() {
+		return employeeRepository.findDepartmentStats();
+	}
+
+	/**
+	 * Gets the stats of one department.
+	 *
+	 * @param department the department
+	 * @return the department stats
+	 */
+	public DepartmentStatsDto getDepartmentStats(String department) {
+		return employeeRepository.findDepartmentStats(department).orElseThrow(() -> new RecordNotFoundException(
+				messageSource.getMessage("error.department.notfound", null, Locale.ENGLISH)));
+	}
+
+	/**
+	 * Gets salary percentiles of one department.
+	 *
+	 * @param department  the department
+	 * @param percentiles the percentiles
+	 * @return the salary percentiles
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public SalaryPercentilesDto getSalaryPercentiles(String department, List<Double> percentiles) {
+		double[] requested = new double[percentiles.size()];
+		for (int i = 0; i < requested.length; i++) {
+			Double percentile = percentiles.get(i);
+			if (percentile == null || !(percentile >= 0 && percentile <= 100)) {
+				throw new InvalidRequestException(messageSource.getMessage("error.salary.percentile.invalid",
+						new Object[] { percentile }, Locale.ENGLISH));
+			}
+			requested[i] = percentile;
+		}
+		checkSalaryIndexReady();
+		int employees = salaryIndex.count(department);
+		long[] cents = salaryIndex.percentiles(department, requested);
+		if (cents == null) {
+			throw new RecordNotFoundException(
+					messageSource.getMessage("error.department.notfound", null, Locale.ENGLISH));
+		}
+		Map<String, BigDecimal> salaries = new LinkedHashMap<>();
+		for (int i = 0; i < requested.length; i++) {
+			salaries.put(BigDecimal.valueOf(requested[i]).stripTrailingZeros().toPlainString(),
+					BigDecimal.valueOf(cents[i], 2));
+		}
+		return SalaryPercentilesDto.builder().department(department).employees(employees).percentiles(salaries)
+				.build();
+	}
+
+	/**
+	 * Counts the employees of one department in a salary range.
+	 *
+	 * @param department the department
+	 * @param minSalary  the lowest salary, inclusive, or null
+	 * @param maxSalary  the highest salary, exclusive, or null
+	 * @return the salary range count
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public SalaryRangeDto countSalaries(String department, BigDecimal minSalary, BigDecimal maxSalary) {
+		if (minSalary != null && maxSalary != null && minSalary.compareTo(maxSalary) > 0) {
+			throw new InvalidRequestException(messageSource.getMessage("error.salary.range.invalid",
+					new Object[] { minSalary, maxSalary }, Locale.ENGLISH));
+		}
+		checkSalaryIndexReady();
+		if (salaryIndex.count(department) == 0) {
+			throw new RecordNotFoundException(
+					messageSource.getMessage("error.department.notfound", null, Locale.ENGLISH));
+		}
+		long minCents = minSalary == null ? Long.MIN_VALUE : SalaryIndex.toCents(minSalary);
+		long maxCents = maxSalary == null ? Long.MAX_VALUE : SalaryIndex.toCents(maxSalary);
+		return SalaryRangeDto.builder().department(department).minSalary(minSalary).maxSalary(maxSalary)
+				.employees(salaryIndex.countBetween(department, minCents, maxCents)).build();
+	}
+
+	private void checkSalaryIndexReady() {
+		if (!salaryIndex.isReady()) {
+			throw new ServiceOverloadedException("Salary index is loading");
+		}
+	}
+}
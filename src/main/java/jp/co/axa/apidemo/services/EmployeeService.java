@@ -1,8 +1,14 @@
 package jp.co.axa.apidemo.services;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import jp.co.axa.apidemo.model.EmployeeBatchResult;
 import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.model.EmployeeSearchCriteria;
 
 /**
  * Employee service layer class use for the Employee operations.
@@ -16,6 +22,48 @@ public interface EmployeeService {
 	 */
 	public List<EmployeeDto> retrieveEmployees();
 
+	/**
+	 * This method returns one keyset page of employee records ordered by id.
+	 *
+	 * @param after the last employee id of the previous page, null for the first
+	 *              page
+	 * @param limit the maximum number of records of the page
+	 * @return the list
+	 */
+	public List<EmployeeDto> retrieveEmployees(Long after, int limit);
+
+	/**
+	 * This method returns employee records ordered by id with only the given
+	 * fields. The id is always included since it is the paging cursor.
+	 *
+	 * @param fields the field names
+	 * @param after  the last employee id of the previous page, null for the first
+	 *               page
+	 * @param limit  the maximum number of records, null for all the records
+	 * @return the records as maps from field name to value
+	 */
+	public List<Map<String, Object>> retrieveEmployeeFields(List<String> fields, Long after, Integer limit);
+
+	/**
+	 * This method returns one keyset page of the employee records matching the
+	 * given filters, ordered by id.
+	 *
+	 * @param criteria the filters
+	 * @param after    the last employee id of the previous page, null for the first
+	 *                 page
+	 * @param limit    the maximum number of records of the page
+	 * @return the list
+	 */
+	public List<EmployeeDto> searchEmployees(EmployeeSearchCriteria criteria, Long after, int limit);
+
+	/**
+	 * This method streams all employee records ordered by id to the given consumer
+	 * without loading the whole table in memory.
+	 *
+	 * @param consumer the consumer of each employee record
+	 */
+	public void streamEmployees(Consumer<EmployeeDto> consumer);
+
 	/**
 	 * This method fetch the employee records from database by given employee id.
 	 *
@@ -24,12 +72,41 @@ public interface EmployeeService {
 	 */
 	public EmployeeDto getEmployee(Long employeeId);
 
+	/**
+	 * This method fetch the employee records of the given ids, from the cache when
+	 * present and otherwise from database with as few queries as possible.
+	 *
+	 * @param employeeIds the employee ids
+	 * @return the found employees in the order of the ids, unknown ids are
+	 *         skipped
+	 */
+	public List<EmployeeDto> getEmployees(Collection<Long> employeeIds);
+
 	/**
 	 * This method inserting the employee records to the database.
 	 *
 	 * @param employeeDto the employee dto
+	 * @return the saved employee
 	 */
-	public void saveEmployee(EmployeeDto employeeDto);
+	public EmployeeDto saveEmployee(EmployeeDto employeeDto);
+
+	/**
+	 * This method validates the employee records one by one as they are read and
+	 * inserts the valid ones to the database in JDBC batches.
+	 *
+	 * @param employeeDtos the employee dtos, read lazily
+	 * @return the per-row results and the achieved throughput
+	 */
+	public EmployeeBatchResult saveEmployees(Iterator<EmployeeDto> employeeDtos);
+
+	/**
+	 * This method loads the given employees into the cache ahead of their first
+	 * request, reading them in batches.
+	 *
+	 * @param employeeIds the employee ids, unknown ids are skipped
+	 * @return the number of employees loaded
+	 */
+	public int preloadEmployees(Collection<Long> employeeIds);
 
 	/**
 	 * This method removing the employee record from database.
@@ -39,10 +116,51 @@ public interface EmployeeService {
 	public void deleteEmployee(Long employeeId);
 
 	/**
-	 * This method updating the existing employee details in the database.
+	 * This method removing the employee record from database only if it still has
+	 * the expected version.
+	 *
+	 * @param employeeId      the employee id
+	 * @param expectedVersion the expected version
+	 */
+	public void deleteEmployee(Long employeeId, Long expectedVersion);
+
+	/**
+	 * This method removing the employee records of the given ids from database.
+	 * Ids that do not exist are ignored, so repeating the call is harmless.
+	 *
+	 * @param employeeIds the employee ids
+	 * @return the number of removed employees
+	 */
+	public int deleteEmployees(Collection<Long> employeeIds);
+
+	/**
+	 * This method updating the existing employee details in the database. When
+	 * the dto carries a version the update is rejected if the stored employee has
+	 * another version.
 	 *
 	 * @param employeeDto the employee dto
 	 * @param employeeId  the employee id
+	 * @return the updated employee
+	 */
+	public EmployeeDto updateEmployee(EmployeeDto employeeDto, Long employeeId);
+
+	/**
+	 * This method updating the details of several existing employees in one
+	 * transaction, the versions are not checked. Each updated employee is put in
+	 * the cache and recorded in the change log once committed.
+	 *
+	 * @param employeeDtos the new details by employee id
+	 * @return the updated employees by id, the unknown ids are left out
+	 */
+	public Map<Long, EmployeeDto> updateEmployees(Map<Long, EmployeeDto> employeeDtos);
+
+	/**
+	 * This method updating only the given fields of an existing employee with a
+	 * single statement, optionally conditional on the version of the dto.
+	 *
+	 * @param employeeDto the fields to change, null fields are left untouched
+	 * @param employeeId  the employee id
+	 * @return the new version of the employee
 	 */
-	public void updateEmployee(EmployeeDto employeeDto, Long employeeId);
+	public Long patchEmployee(EmployeeDto employeeDto, Long employeeId);
 }
\ No newline at end of file
@@ -1,19 +1,59 @@
 package jp.co.axa.apidemo.services;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.UnaryOperator;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.MessageSource;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import jp.co.axa.apidemo.cache.CacheConfig;
+import jp.co.axa.apidemo.changes.EmployeeChangeLog;
+import jp.co.axa.apidemo.datasource.ReadWriteRoutingDataSource;
 import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.exception.InvalidRequestException;
+import jp.co.axa.apidemo.exception.PreconditionFailedException;
 import jp.co.axa.apidemo.exception.RecordNotFoundException;
+import jp.co.axa.apidemo.model.EmployeeBatchResult;
+import jp.co.axa.apidemo.model.EmployeeBatchResult.RowResult;
+import jp.co.axa.apidemo.model.EmployeeBatchResult.RowStatus;
+import jp.co.axa.apidemo.model.EmployeeChange.ChangeType;
 import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.model.EmployeeSearchCriteria;
 import jp.co.axa.apidemo.repositories.EmployeeRepository;
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,17 +64,34 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class EmployeeServiceImpl implements EmployeeService {
 
+	/** Fields of an employee that can be selected, in their output order. */
+	private static final List<String> EMPLOYEE_FIELDS = Collections
+			.unmodifiableList(Arrays.asList("id", "name", "salary", "department", "version"));
+
 	@Autowired
 	private EmployeeRepository employeeRepository;
 
 	@Autowired
 	private MessageSource messageSource;
 
+	@Autowired
+	private Validator validator;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private EmployeeChangeLog employeeChangeLog;
+
+	@Value("${employee.batch.size:500}")
+	private int batchSize;
+
 	/**
 	 * Retrieve employees.
 	 *
 	 * @return the list
 	 */
+	@Transactional(readOnly = true)
 	public List<EmployeeDto> retrieveEmployees() {
 		List<Employee> employees = employeeRepository.findAll();
 		if (employees.isEmpty()) {
@@ -45,64 +102,592 @@ public class EmployeeServiceImpl implements EmployeeService {
 	}
 
 	/**
-	 * Gets the employee.
+	 * Retrieve one keyset page of employees.
+	 *
+	 * @param after the last employee id of the previous page
+	 * @param limit the page size
+	 * @return the list
+	 */
+	@Transactional(readOnly = true)
+	public List<EmployeeDto> retrieveEmployees(Long after, int limit) {
+		return employeeRepository.findPageAfter(after == null ? 0L : after, PageRequest.of(0, limit));
+	}
+
+	/**
+	 * Retrieve employees with only the given fields, selected by the query
+	 * itself.
+	 *
+	 * @param fields the field names
+	 * @param after  the last employee id of the previous page
+	 * @param limit  the page size, null for all
+	 * @return the list
+	 */
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> retrieveEmployeeFields(List<String> fields, Long after, Integer limit) {
+		Set<String> requested = fields.stream().map(String::trim).filter(field -> !field.isEmpty())
+				.collect(Collectors.toCollection(TreeSet::new));
+		if (!EMPLOYEE_FIELDS.containsAll(requested)) {
+			requested.removeAll(EMPLOYEE_FIELDS);
+			throw new InvalidRequestException(messageSource.getMessage("error.employee.fields.invalid",
+					new Object[] { requested, EMPLOYEE_FIELDS }, Locale.ENGLISH));
+		}
+		List<String> selected = EMPLOYEE_FIELDS.stream()
+				.filter(field -> "id".equals(field) || requested.contains(field)).collect(Collectors.toList());
+		return employeeRepository.findFields(selected, after, limit);
+	}
+
+	/**
+	 * Search one keyset page of employees.
+	 *
+	 * @param criteria the filters
+	 * @param after    the last employee id of the previous page
+	 * @param limit    the page size
+	 * @return the list
+	 */
+	@Transactional(readOnly = true)
+	public List<EmployeeDto> searchEmployees(EmployeeSearchCriteria criteria, Long after, int limit) {
+		return employeeRepository.search(criteria, after, limit);
+	}
+
+	/**
+	 * Stream employees to the consumer from a database cursor.
+	 *
+	 * @param consumer the consumer
+	 */
+	@Transactional(readOnly = true)
+	public void streamEmployees(Consumer<EmployeeDto> consumer) {
+		try (Stream<EmployeeDto> employees = employeeRepository.streamAll()) {
+			employees.forEach(consumer);
+		}
+	}
+
+	/**
+	 * Gets the employee. Concurrent requests missing the same employee wait for
+	 * one load instead of each querying the database. The employee is cached for
+	 * every client, so it is read from the primary even when reads go to a
+	 * replica.
 	 *
 	 * @param employeeId the employee id
 	 * @return the employee
 	 */
-	@Cacheable(cacheNames = "employee", key = "#employeeId")
+	@Cacheable(cacheNames = "employee", key = "#employeeId", sync = true)
+	@Transactional(readOnly = true)
 	public EmployeeDto getEmployee(Long employeeId) {
-		String errorMessage = messageSource.getMessage("error.employee.notfound", null, Locale.ENGLISH);
-		Employee employee = employeeRepository.findById(employeeId)
-				.orElseThrow(() -> new RecordNotFoundException(errorMessage));
-		return convertToEmployeeDto(employee);
+		Cache missingEmployees = cacheManager.getCache(CacheConfig.MISSING_EMPLOYEE);
+		if (missingEmployees != null && missingEmployees.get(employeeId) != null) {
+			throw notFound("error.employee.notfound");
+		}
+		Optional<Employee> employee = ReadWriteRoutingDataSource
+				.readFromPrimary(() -> employeeRepository.findById(employeeId));
+		if (!employee.isPresent()) {
+			if (missingEmployees != null) {
+				missingEmployees.put(employeeId, Boolean.TRUE);
+			}
+			throw notFound("error.employee.notfound");
+		}
+		return convertToEmployeeDto(employee.get());
 	}
 
 	/**
-	 * Save employee.
+	 * Save employee and write it through to the cache.
 	 *
 	 * @param employee the employee
+	 * @return the saved employee
 	 */
-	public void saveEmployee(EmployeeDto employeeDto) {
-		employeeRepository.save(convertToEmployeeEntity(employeeDto));
+	@CachePut(cacheNames = "employee", key = "#result.id")
+	public EmployeeDto saveEmployee(EmployeeDto employeeDto) {
+		EmployeeDto savedDto = convertToEmployeeDto(employeeRepository.save(convertToEmployeeEntity(employeeDto)));
+		forgetMissingEmployees(Collections.singletonList(savedDto.getId()));
+		employeeChangeLog.append(ChangeType.CREATED, savedDto.getId(), savedDto);
+		return savedDto;
+	}
+
+	/**
+	 * Save employees in JDBC batches of {@code employee.batch.size} rows. A row
+	 * that can not be read or fails validation is rejected without stopping the
+	 * import, unless the input itself is broken.
+	 *
+	 * @param employeeDtos the employee dtos
+	 * @return the batch result
+	 */
+	public EmployeeBatchResult saveEmployees(Iterator<EmployeeDto> employeeDtos) {
+		long startTime = System.nanoTime();
+		List<RowResult> rows = new ArrayList<>();
+		List<Employee> pendingEmployees = new ArrayList<>(batchSize);
+		List<RowResult> pendingRows = new ArrayList<>(batchSize);
+		int inserted = 0;
+		while (hasNextRow(employeeDtos, rows)) {
+			int row = rows.size();
+			EmployeeDto employeeDto;
+			try {
+				employeeDto = employeeDtos.next();
+			} catch (RuntimeException exception) {
+				rows.add(rejectedRow(row, Collections.singletonList(exception.getMessage())));
+				continue;
+			}
+			List<String> errors = validateRow(employeeDto);
+			if (!errors.isEmpty()) {
+				rows.add(rejectedRow(row, errors));
+				continue;
+			}
+			RowResult rowResult = new RowResult(row, RowStatus.CREATED, null, null);
+			rows.add(rowResult);
+			pendingRows.add(rowResult);
+			pendingEmployees.add(convertToEmployeeEntity(employeeDto));
+			if (pendingEmployees.size() >= batchSize) {
+				inserted += insertBatch(pendingEmployees, pendingRows);
+			}
+		}
+		inserted += insertBatch(pendingEmployees, pendingRows);
+
+		long elapsedNanos = System.nanoTime() - startTime;
+		double rowsPerSecond = elapsedNanos == 0 ? 0 : inserted * 1_000_000_000d / elapsedNanos;
+		log.info("Imported {} of {} employees at {} rows/s", inserted, rows.size(), Math.round(rowsPerSecond));
+		return EmployeeBatchResult.builder().received(rows.size()).inserted(inserted)
+				.rejected(rows.size() - inserted).elapsedMillis(elapsedNanos / 1_000_000)
+				.rowsPerSecond(rowsPerSecond).rows(rows).build();
+	}
+
+	/**
+	 * Preload employees into the cache, {@code employee.batch.size} ids per query.
+	 *
+	 * @param employeeIds the employee ids
+	 * @return the number of employees loaded
+	 */
+	@Transactional(readOnly = true)
+	public int preloadEmployees(Collection<Long> employeeIds) {
+		Cache cache = cacheManager.getCache("employee");
+		if (cache == null) {
+			return 0;
+		}
+		return loadEmployees(new ArrayList<>(employeeIds), cache).size();
+	}
+
+	/**
+	 * Gets the employees of the given ids. The cached ones are looked up at once,
+	 * the others are read with {@code employee.batch.size} ids per query and
+	 * cached. Ids already known to be missing are not queried again.
+	 *
+	 * @param employeeIds the employee ids
+	 * @return the found employees in the order of their ids
+	 */
+	@Transactional(readOnly = true)
+	public List<EmployeeDto> getEmployees(Collection<Long> employeeIds) {
+		Set<Long> ids = new LinkedHashSet<>(employeeIds);
+		Map<Long, EmployeeDto> found = new HashMap<>(cachedEmployees(CacheConfig.EMPLOYEE, ids));
+		Set<Long> missing = cachedEmployees(CacheConfig.MISSING_EMPLOYEE, ids).keySet();
+		List<Long> misses = ids.stream().filter(id -> !found.containsKey(id) && !missing.contains(id))
+				.collect(Collectors.toList());
+		if (!misses.isEmpty()) {
+			Map<Long, EmployeeDto> loaded = loadEmployees(misses, cacheManager.getCache(CacheConfig.EMPLOYEE));
+			found.putAll(loaded);
+			Cache missingEmployees = cacheManager.getCache(CacheConfig.MISSING_EMPLOYEE);
+			if (missingEmployees != null) {
+				misses.stream().filter(id -> !loaded.containsKey(id))
+						.forEach(id -> missingEmployees.put(id, Boolean.TRUE));
+			}
+		}
+		return ids.stream().map(found::get).filter(Objects::nonNull).collect(Collectors.toList());
 	}
 
 	@CacheEvict(cacheNames = "employee", key = "#employeeId")
 	public void deleteEmployee(Long employeeId) {
-		try {
-			employeeRepository.deleteById(employeeId);
-		} catch (EmptyResultDataAccessException exception) {
-			log.error("Error on delete employee");
-			String errorMessage = messageSource.getMessage("error.employee.notfound.delete", null, Locale.ENGLISH);
-			throw new RecordNotFoundException(errorMessage);
+		if (employeeRepository.deleteEmployeeById(employeeId) == 0) {
+			throw notFound("error.employee.notfound.delete");
+		}
+		employeeChangeLog.append(ChangeType.DELETED, employeeId, null);
+	}
+
+	/**
+	 * Delete employees, then evict them from the cache in one pass once the
+	 * deletion is committed. Only the employees that existed are recorded as
+	 * deleted in the change log, an id not generated yet must stay free for the
+	 * employee that will get it.
+	 *
+	 * @param employeeIds the employee ids
+	 * @return the number of deleted employees
+	 */
+	public int deleteEmployees(Collection<Long> employeeIds) {
+		if (employeeIds.isEmpty()) {
+			return 0;
 		}
+		List<Long> deleted = employeeRepository.deleteAllByIdIn(employeeIds);
+		evictCachedEmployees(employeeIds);
+		deleted.forEach(employeeId -> employeeChangeLog.append(ChangeType.DELETED, employeeId, null));
+		return deleted.size();
 	}
 
 	/**
-	 * Update employee.
+	 * Delete employee only if it still has the expected version.
+	 *
+	 * @param employeeId      the employee id
+	 * @param expectedVersion the expected version
+	 */
+	@CacheEvict(cacheNames = "employee", key = "#employeeId")
+	public void deleteEmployee(Long employeeId, Long expectedVersion) {
+		if (employeeRepository.deleteByIdAndVersion(employeeId, expectedVersion) == 0) {
+			throw notFoundOrVersionMismatch(employeeId, "error.employee.notfound.delete");
+		}
+		employeeChangeLog.append(ChangeType.DELETED, employeeId, null);
+	}
+
+	/**
+	 * Update employee and write the updated record through to the cache once the
+	 * transaction is committed, unless the cache already holds a later version. When
+	 * the dto carries a version the update only succeeds if the stored employee
+	 * still has that version, checked against the employee read here; a
+	 * concurrent update committed after that read fails the flush on the version
+	 * column. Both are reported as an optimistic locking failure. The employee is read in the same transaction as it
+	 * is written, so from the primary even when reads go to a replica. It is
+	 * flushed before being returned, so the returned and cached employee carries
+	 * the incremented version.
 	 *
 	 * @param employeeDto the employee dto
 	 * @param employeeId  the employee id
+	 * @return the updated employee
 	 */
-	@CacheEvict(value = "employees", allEntries = true)
-	public void updateEmployee(EmployeeDto employeeDto, Long employeeId) {
-		String errorMessage = messageSource.getMessage("error.employee.notfound.update", null, Locale.ENGLISH);
+	@Transactional
+	public EmployeeDto updateEmployee(EmployeeDto employeeDto, Long employeeId) {
 		// Check whether the employee is present or not
 		Employee employee = employeeRepository.findById(employeeId)
-				.orElseThrow(() -> new RecordNotFoundException(errorMessage));
+				.orElseThrow(() -> notFound("error.employee.notfound.update"));
+		if (employeeDto.getVersion() != null && !employeeDto.getVersion().equals(employee.getVersion())) {
+			throw new ObjectOptimisticLockingFailureException(Employee.class, employeeId);
+		}
 		employee.setName(employeeDto.getName());
 		employee.setSalary(employeeDto.getSalary());
 		employee.setDepartment(employeeDto.getDepartment());
-		employeeRepository.save(employee);
+		EmployeeDto updatedDto = convertToEmployeeDto(employeeRepository.saveAndFlush(employee));
+		employeeChangeLog.append(ChangeType.UPDATED, employeeId, updatedDto);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					cacheUnlessOlder(updatedDto);
+				}
+			});
+		} else {
+			cacheUnlessOlder(updatedDto);
+		}
+		return updatedDto;
+	}
+
+	/**
+	 * Update several employees in one transaction, then write them through to the
+	 * cache once it is committed. A cached employee of a later version, written by
+	 * an update committed meanwhile, is kept.
+	 *
+	 * @param employeeDtos the new details by employee id
+	 * @return the updated employees by id
+	 */
+	public Map<Long, EmployeeDto> updateEmployees(Map<Long, EmployeeDto> employeeDtos) {
+		if (employeeDtos.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<Long, EmployeeDto> updated = new LinkedHashMap<>();
+		for (Employee employee : employeeRepository.updateAll(employeeDtos)) {
+			updated.put(employee.getId(), convertToEmployeeDto(employee));
+		}
+		updated.forEach((employeeId, updatedDto) -> {
+			cacheUnlessOlder(updatedDto);
+			employeeChangeLog.append(ChangeType.UPDATED, employeeId, updatedDto);
+		});
+		return updated;
+	}
+
+	/**
+	 * Checks for a next row; a broken input is recorded as a rejected row and ends
+	 * the import.
+	 */
+	private boolean hasNextRow(Iterator<EmployeeDto> employeeDtos, List<RowResult> rows) {
+		try {
+			return employeeDtos.hasNext();
+		} catch (RuntimeException exception) {
+			rows.add(rejectedRow(rows.size(), Collections.singletonList(exception.getMessage())));
+			return false;
+		}
+	}
+
+	private List<String> validateRow(EmployeeDto employeeDto) {
+		if (employeeDto == null) {
+			return Collections.singletonList("row is empty");
+		}
+		Set<ConstraintViolation<EmployeeDto>> violations = validator.validate(employeeDto);
+		return violations.stream().map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+				.sorted().collect(Collectors.toList());
+	}
+
+	private RowResult rejectedRow(int row, List<String> errors) {
+		return new RowResult(row, RowStatus.REJECTED, null, errors);
+	}
+
+	/**
+	 * Inserts the pending employees as one batch, fills in the generated ids and
+	 * clears the pending lists.
+	 */
+	private int insertBatch(List<Employee> pendingEmployees, List<RowResult> pendingRows) {
+		if (pendingEmployees.isEmpty()) {
+			return 0;
+		}
+		List<Long> ids = employeeRepository.batchInsert(pendingEmployees);
+		forgetMissingEmployees(ids);
+		for (int i = 0; i < pendingRows.size(); i++) {
+			Long id = i < ids.size() ? ids.get(i) : null;
+			pendingRows.get(i).setId(id);
+			if (id != null) {
+				Employee employee = pendingEmployees.get(i);
+				employeeChangeLog.append(ChangeType.CREATED, id, EmployeeDto.builder().id(id).name(employee.getName())
+						.salary(employee.getSalary()).department(employee.getDepartment()).version(0L).build());
+			}
+		}
+		int inserted = pendingEmployees.size();
+		pendingEmployees.clear();
+		pendingRows.clear();
+		return inserted;
+	}
+
+	/**
+	 * Reads the given employees from the primary in chunks of
+	 * {@code employee.batch.size} ids and caches the ones not cached meanwhile,
+	 * if there is a cache. An entry written
+	 * by a concurrent update is newer than the row read here, so it is kept and
+	 * returned instead.
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<Long, EmployeeDto> loadEmployees(List<Long> employeeIds, Cache cache) {
+		Map<Long, EmployeeDto> loaded = new HashMap<>();
+		Object nativeCache = cache == null ? null : cache.getNativeCache();
+		for (int from = 0; from < employeeIds.size(); from += batchSize) {
+			List<Long> chunk = employeeIds.subList(from, Math.min(from + batchSize, employeeIds.size()));
+			for (Employee employee : ReadWriteRoutingDataSource
+					.readFromPrimary(() -> employeeRepository.findAllById(chunk))) {
+				EmployeeDto employeeDto = convertToEmployeeDto(employee);
+				Object cached = null;
+				if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+					cached = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap()
+							.putIfAbsent(employee.getId(), employeeDto);
+				} else if (cache != null) {
+					ValueWrapper wrapper = cache.putIfAbsent(employee.getId(), employeeDto);
+					cached = wrapper == null ? null : wrapper.get();
+				}
+				loaded.put(employee.getId(), cached instanceof EmployeeDto ? (EmployeeDto) cached : employeeDto);
+			}
+		}
+		return loaded;
+	}
+
+	/**
+	 * Returns the present entries of the given cache for the ids, with one bulk
+	 * lookup when the cache is a Caffeine cache.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> Map<Long, T> cachedEmployees(String cacheName, Set<Long> employeeIds) {
+		Cache cache = cacheManager.getCache(cacheName);
+		if (cache == null) {
+			return Collections.emptyMap();
+		}
+		Object nativeCache = cache.getNativeCache();
+		if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+			return (Map<Long, T>) (Map<?, ?>) ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache)
+					.getAllPresent(employeeIds);
+		}
+		Map<Long, T> present = new HashMap<>();
+		for (Long employeeId : employeeIds) {
+			Cache.ValueWrapper value = cache.get(employeeId);
+			if (value != null) {
+				present.put(employeeId, (T) value.get());
+			}
+		}
+		return present;
 	}
 
-	private EmployeeDto convertToEmployeeDto(Employee employee) {
+	/**
+	 * Applies the given change to the cached employee, if it is cached. Caffeine
+	 * does this atomically per key so concurrent changes are not lost.
+	 */
+	@SuppressWarnings("unchecked")
+	private void refreshCachedEmployee(Long employeeId, UnaryOperator<EmployeeDto> change) {
+		Cache cache = cacheManager.getCache("employee");
+		if (cache == null) {
+			return;
+		}
+		Object nativeCache = cache.getNativeCache();
+		if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+			((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap()
+					.computeIfPresent(employeeId, (key, cached) -> change.apply((EmployeeDto) cached));
+		} else {
+			cache.evict(employeeId);
+		}
+	}
+
+	/**
+	 * Caches an updated employee unless the cache holds a later version of it.
+	 * Updates of the same employee may reach the cache out of commit order, the
+	 * versions tell which one is the latest. Caffeine compares them atomically per
+	 * key; another cache only gets the entry evicted.
+	 */
+	@SuppressWarnings("unchecked")
+	private void cacheUnlessOlder(EmployeeDto updatedDto) {
+		Cache cache = cacheManager.getCache(CacheConfig.EMPLOYEE);
+		if (cache == null) {
+			return;
+		}
+		Object nativeCache = cache.getNativeCache();
+		if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+			((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap().merge(
+					updatedDto.getId(), updatedDto,
+					(cached, updated) -> isOlder((EmployeeDto) updated, (EmployeeDto) cached) ? cached : updated);
+		} else {
+			cache.evict(updatedDto.getId());
+		}
+	}
+
+	/**
+	 * Tells whether an employee is of an earlier version than another one, an
+	 * employee without a version is never older.
+	 */
+	private static boolean isOlder(EmployeeDto employee, EmployeeDto other) {
+		return employee.getVersion() != null && other.getVersion() != null
+				&& employee.getVersion() < other.getVersion();
+	}
+
+	/**
+	 * Evicts the given employees from the cache, with one bulk invalidation when
+	 * the cache is a Caffeine cache.
+	 */
+	@SuppressWarnings("unchecked")
+	private void evictCachedEmployees(Collection<Long> employeeIds) {
+		Cache cache = cacheManager.getCache("employee");
+		if (cache == null) {
+			return;
+		}
+		Object nativeCache = cache.getNativeCache();
+		if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+			((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).invalidateAll(employeeIds);
+		} else {
+			employeeIds.forEach(cache::evict);
+		}
+	}
+
+	/**
+	 * Tells apart a missing employee from one whose version changed after a
+	 * conditional statement matched no row.
+	 */
+	private RuntimeException notFoundOrVersionMismatch(Long employeeId, String notFoundMessageKey) {
+		if (employeeRepository.existsById(employeeId)) {
+			return versionMismatch();
+		}
+		return notFound(notFoundMessageKey);
+	}
+
+	/**
+	 * Creates the not found exception, the message is only resolved once the
+	 * employee is known to be missing.
+	 */
+	private RecordNotFoundException notFound(String messageKey) {
+		return new RecordNotFoundException(messageSource.getMessage(messageKey, null, Locale.ENGLISH));
+	}
+
+	/**
+	 * Removes newly created ids from the missing employees, they may have been
+	 * requested before being inserted.
+	 */
+	private void forgetMissingEmployees(List<Long> employeeIds) {
+		Cache missingEmployees = cacheManager.getCache(CacheConfig.MISSING_EMPLOYEE);
+		if (missingEmployees != null) {
+			employeeIds.forEach(missingEmployees::evict);
+		}
+	}
+
+	private PreconditionFailedException versionMismatch() {
+		return new PreconditionFailedException(
+				messageSource.getMessage("error.employee.version.mismatch", null, Locale.ENGLISH));
+	}
+
+	EmployeeDto convertToEmployeeDto(Employee employee) {
 		return EmployeeDto.builder().id(employee.getId()).name(employee.getName()).salary(employee.getSalary())
-				.department(employee.getDepartment()).build();
+				.department(employee.getDepartment()).version(employee.getVersion()).build();
 	}
 
-	private Employee convertToEmployeeEntity(EmployeeDto employeeDto) {
+	Employee convertToEmployeeEntity(EmployeeDto employeeDto) {
 		return Employee.builder().id(employeeDto.getId()).name(employeeDto.getName()).salary(employeeDto.getSalary())
 				.department(employeeDto.getDepartment()).build();
 	}
+
+	/**
+	 * Patch employee with one conditional update, which tells whether the
+	 * employee exists and gives its new version. An empty patch still increments
+	 * the version.
+	 * <p>
+	 * A patch without a version is made conditional on the cached version, so the
+	 * new version is known from the update alone. Only when nothing is cached, or
+	 * the cached version is outdated, is the employee updated unconditionally and
+	 * its version read back.
+	 *
+	 * @param employeeDto the fields to change
+	 * @param employeeId  the employee id
+	 * @return the new version
+	 */
+	public Long patchEmployee(EmployeeDto employeeDto, Long employeeId) {
+		validatePresentFields(employeeDto);
+		Long version = updatePartially(employeeId, employeeDto);
+		if (version == null) {
+			throw notFoundOrVersionMismatch(employeeId, "error.employee.notfound.update");
+		}
+		employeeChangeLog.append(ChangeType.PATCHED, employeeId,
+				EmployeeDto.builder().id(employeeId).name(employeeDto.getName()).salary(employeeDto.getSalary())
+						.department(employeeDto.getDepartment()).version(version).build());
+		refreshCachedEmployee(employeeId, cached -> {
+			if (cached.getVersion() != null && cached.getVersion() >= version) {
+				// a later update already includes this patch
+				return cached;
+			}
+			return EmployeeDto.builder().id(cached.getId())
+					.name(employeeDto.getName() != null ? employeeDto.getName() : cached.getName())
+					.salary(employeeDto.getSalary() != null ? employeeDto.getSalary() : cached.getSalary())
+					.department(
+							employeeDto.getDepartment() != null ? employeeDto.getDepartment() : cached.getDepartment())
+					.version(version).build();
+		});
+		return version;
+	}
+
+	/**
+	 * Updates the present fields, conditionally on the cached version when the
+	 * changes carry none, and falls back to an unconditional update.
+	 */
+	private Long updatePartially(Long employeeId, EmployeeDto changes) {
+		if (changes.getVersion() == null) {
+			Cache cache = cacheManager.getCache(CacheConfig.EMPLOYEE);
+			EmployeeDto cached = cache != null ? cache.get(employeeId, EmployeeDto.class) : null;
+			if (cached != null && cached.getVersion() != null) {
+				Long version = employeeRepository.updatePartially(employeeId,
+						EmployeeDto.builder().name(changes.getName()).salary(changes.getSalary())
+								.department(changes.getDepartment()).version(cached.getVersion()).build());
+				if (version != null) {
+					return version;
+				}
+			}
+		}
+		return employeeRepository.updatePartially(employeeId, changes);
+	}
+
+	/**
+	 * Validates only the fields that are present in a partial update.
+	 */
+	private void validatePresentFields(EmployeeDto employeeDto) {
+		Set<ConstraintViolation<EmployeeDto>> violations = new HashSet<>();
+		if (employeeDto.getName() != null) {
+			violations.addAll(validator.validateProperty(employeeDto, "name"));
+		}
+		if (employeeDto.getSalary() != null) {
+			violations.addAll(validator.validateProperty(employeeDto, "salary"));
+		}
+		if (employeeDto.getDepartment() != null) {
+			violations.addAll(validator.validateProperty(employeeDto, "department"));
+		}
+		if (!violations.isEmpty()) {
+			throw new ConstraintViolationException(violations);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+package jp.co.axa.apidemo.snapshot;
+
+import static jp.co.axa.apidemo.snapshot.EmployeeSnapshotWriter.BLOCK_HEADER_BYTES;
+import static jp.co.axa.apidemo.snapshot.EmployeeSnapshotWriter.FIXED_ROW_BYTES;
+import static jp.co.axa.apidemo.snapshot.EmployeeSnapshotWriter.FORMAT_VERSION;
+import static jp.co.axa.apidemo.snapshot.EmployeeSnapshotWriter.HEADER_BYTES;
+import static jp.co.axa.apidemo.snapshot.EmployeeSnapshotWriter.MAGIC;
+import static jp.co.axa.apidemo.snapshot.EmployeeSnapshotWriter.NULL_LONG;
+import static jp.co.axa.apidemo.snapshot.EmployeeSnapshotWriter.SALARY_SCALE;
+import static jp.co.axa.apidemo.snapshot.EmployeeSnapshotWriter.TRAILER_BYTES;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import jp.co.axa.apidemo.entities.Employee;
+
+/**
+ * Reads a snapshot written by {@link EmployeeSnapshotWriter}. Each block is
+ * memory-mapped on its own, checked against its checksum and decoded column by
+ * column, so only one block of the file is mapped at a time whatever its size.
+ * A corrupted file is reported with an {@link IOException}, never with an
+ * unchecked exception of the decoding.
+ */
+public final class EmployeeSnapshotReader {
+
+	private EmployeeSnapshotReader() {
+	}
+
+	/**
+	 * Checks the whole snapshot: its header and footer, the checksum of every
+	 * block and the decoding of every row, without keeping the employees.
+	 *
+	 * @param file the snapshot file
+	 * @return the number of employees
+	 * @throws IOException if the file can not be read or is not a valid snapshot
+	 */
+	public static long validate(Path file) throws IOException {
+		return read(file, employee -> {
+		});
+	}
+
+	/**
+	 * Reads the employees of the snapshot in the order they were written.
+	 *
+	 * @param file     the snapshot file
+	 * @param consumer the consumer of each employee
+	 * @return the number of employees read
+	 * @throws IOException if the file can not be read or is not a snapshot
+	 */
+	public static long read(Path file, Consumer<Employee> consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			Footer footer = readFooter(channel, file);
+			CRC32 checksum = new CRC32();
+			long rows = 0;
+			long position = HEADER_BYTES;
+			while (position < footer.position) {
+				ByteBuffer blockHeader = channel.map(MapMode.READ_ONLY, position, BLOCK_HEADER_BYTES);
+				int blockRows = blockHeader.getInt();
+				int nameBytes = blockHeader.getInt();
+				long blockBytes = BLOCK_HEADER_BYTES + (long) blockRows * FIXED_ROW_BYTES + nameBytes;
+				if (blockRows <= 0 || nameBytes < 0 || position + blockBytes > footer.position) {
+					throw new IOException("Employee snapshot block at " + position + " is corrupted");
+				}
+				ByteBuffer block = channel.map(MapMode.READ_ONLY, position, blockBytes);
+				checksum.reset();
+				checksum.update((ByteBuffer) block.duplicate().position(BLOCK_HEADER_BYTES));
+				if ((int) checksum.getValue() != blockHeader.getInt()) {
+					throw new IOException("Employee snapshot block at " + position + " does not match its checksum");
+				}
+				try {
+					readBlock(block, blockRows, footer.departments, consumer);
+				} catch (IndexOutOfBoundsException | BufferUnderflowException exception) {
+					throw new IOException("Employee snapshot block at " + position + " is corrupted", exception);
+				}
+				rows += blockRows;
+				position += blockBytes;
+			}
+			if (rows != footer.rows) {
+				throw new IOException("Employee snapshot is truncated, " + rows + " of " + footer.rows + " rows read");
+			}
+			return rows;
+		}
+	}
+
+	private static Footer readFooter(FileChannel channel, Path file) throws IOException {
+		long size = channel.size();
+		if (size < HEADER_BYTES + TRAILER_BYTES) {
+			throw new IOException("Not an employee snapshot: " + file.getFileName());
+		}
+		ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_BYTES);
+		ByteBuffer trailer = channel.map(MapMode.READ_ONLY, size - TRAILER_BYTES, TRAILER_BYTES);
+		long footerPosition = trailer.getLong();
+		if (header.getInt() != MAGIC || trailer.getInt() != MAGIC || footerPosition < HEADER_BYTES
+				|| footerPosition > size - TRAILER_BYTES) {
+			throw new IOException("Not an employee snapshot: " + file.getFileName());
+		}
+		int version = header.getInt();
+		if (version != FORMAT_VERSION) {
+			throw new IOException("Unsupported employee snapshot version " + version);
+		}
+		try {
+			ByteBuffer footer = channel.map(MapMode.READ_ONLY, footerPosition, size - TRAILER_BYTES - footerPosition);
+			String[] departments = new String[footer.getInt()];
+			for (int i = 0; i < departments.length; i++) {
+				departments[i] = readString(footer, footer.getInt());
+			}
+			return new Footer(footerPosition, departments, footer.getLong());
+		} catch (RuntimeException exception) {
+			throw new IOException("Employee snapshot footer is corrupted", exception);
+		}
+	}
+
+	private static void readBlock(ByteBuffer block, int rows, String[] departments, Consumer<Employee> consumer) {
+		int idsAt = BLOCK_HEADER_BYTES;
+		int versionsAt = idsAt + rows * 8;
+		int salariesAt = versionsAt + rows * 8;
+		int departmentsAt = salariesAt + rows * 8;
+		int nameLengthsAt = departmentsAt + rows * 4;
+		block.position(nameLengthsAt + rows * 4);
+		for (int row = 0; row < rows; row++) {
+			long version = block.getLong(versionsAt + row * 8);
+			long salary = block.getLong(salariesAt + row * 8);
+			int department = block.getInt(departmentsAt + row * 4);
+			int nameLength = block.getInt(nameLengthsAt + row * 4);
+			consumer.accept(Employee.builder().id(block.getLong(idsAt + row * 8))
+					.name(nameLength < 0 ? null : readString(block, nameLength))
+					.salary(salary == NULL_LONG ? null : BigDecimal.valueOf(salary, SALARY_SCALE))
+					.department(department < 0 ? null : departments[department])
+					.version(version == NULL_LONG ? null : version).build());
+		}
+	}
+
+	private static String readString(ByteBuffer buffer, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Dictionary and row count of a snapshot, read from its footer.
+	 */
+	private static final class Footer {
+
+		private final long position;
+
+		private final String[] departments;
+
+		private final long rows;
+
+		private Footer(long position, String[] departments, long rows) {
+			this.position = position;
+			this.departments = departments;
+			this.rows = rows;
+		}
+	}
+}
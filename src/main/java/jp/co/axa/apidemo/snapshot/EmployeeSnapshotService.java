@@ -0,0 +1,187 @@
+package jp.co.axa.apidemo.snapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+
+import jp.co.axa.apidemo.cache.CacheConfig;
+import jp.co.axa.apidemo.changes.EmployeeChangeLog;
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.exception.InvalidRequestException;
+import jp.co.axa.apidemo.exception.RecordNotFoundException;
+import jp.co.axa.apidemo.model.EmployeeSnapshotResult;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports the employee table to columnar snapshot files in
+ * {@code employee.snapshot.dir} and restores it from them. The export reads a
+ * forward-only cursor into {@link EmployeeSnapshotWriter}, the restore reads
+ * the mapped file with {@link EmployeeSnapshotReader} and inserts
+ * {@code employee.batch.size} rows per batch, both with a constant amount of
+ * heap. Only one export or restore runs at a time.
+ */
+@Slf4j
+@Service
+public class EmployeeSnapshotService {
+
+	private static final Pattern SNAPSHOT_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+	private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+	/** Rows of one block of the snapshot file. */
+	private static final int BLOCK_ROWS = 65536;
+
+	@Value("${employee.snapshot.dir:./snapshots}")
+	private String snapshotDir;
+
+	@Value("${employee.batch.size:500}")
+	private int batchSize;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private EmployeeChangeLog employeeChangeLog;
+
+	@Autowired
+	private MessageSource messageSource;
+
+	/**
+	 * Writes all the employees to a new snapshot. The file only gets its name once
+	 * complete, so a failed export leaves no partial snapshot behind.
+	 *
+	 * @return the snapshot name, its size and the throughput
+	 */
+	public synchronized EmployeeSnapshotResult exportSnapshot() {
+		long startTime = System.nanoTime();
+		String name = "employees-" + LocalDateTime.now().format(NAME_FORMAT) + ".snapshot";
+		try {
+			Path directory = Files.createDirectories(Paths.get(snapshotDir));
+			Path partial = directory.resolve(name + ".part");
+			long employees;
+			try (EmployeeSnapshotWriter writer = new EmployeeSnapshotWriter(partial, BLOCK_ROWS)) {
+				employeeRepository.scanEmployees(employee -> {
+					try {
+						writer.write(employee);
+					} catch (IOException exception) {
+						throw new UncheckedIOException(exception);
+					}
+				});
+				employees = writer.getRows();
+			} catch (IOException | RuntimeException exception) {
+				Files.deleteIfExists(partial);
+				throw exception;
+			}
+			Path file = Files.move(partial, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+			return result(name, employees, Files.size(file), startTime, "Exported");
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	/**
+	 * Replaces all the employees with the ones of the snapshot, keeping their ids
+	 * and versions. The whole snapshot is decoded and its block checksums checked
+	 * before the table is truncated, so a corrupted snapshot leaves the employees
+	 * untouched. The secondary indexes are dropped during the load and built
+	 * once at the end. The rows are committed batch by batch, so the restore is
+	 * not atomic: it is meant for recovery and seeding, not for a live table. The
+	 * caches are cleared and the change feed consumers are reset afterwards.
+	 *
+	 * @param name the snapshot name
+	 * @return the number of restored employees and the throughput
+	 */
+	public synchronized EmployeeSnapshotResult restoreSnapshot(String name) {
+		long startTime = System.nanoTime();
+		Path file = snapshotFile(name);
+		try {
+			EmployeeSnapshotReader.validate(file);
+		} catch (IOException exception) {
+			log.info("Snapshot {} can not be restored: {}", name, exception.getMessage());
+			throw new InvalidRequestException(
+					messageSource.getMessage("error.snapshot.invalid", new Object[] { name }, Locale.ENGLISH));
+		}
+		employeeRepository.truncate();
+		List<String> indexes = employeeRepository.dropSecondaryIndexes();
+		long employees;
+		try {
+			List<Employee> batch = new ArrayList<>(batchSize);
+			employees = EmployeeSnapshotReader.read(file, employee -> {
+				batch.add(employee);
+				if (batch.size() == batchSize) {
+					employeeRepository.insertWithIds(batch);
+					batch.clear();
+				}
+			});
+			if (!batch.isEmpty()) {
+				employeeRepository.insertWithIds(batch);
+			}
+			employeeRepository.restartIds();
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		} finally {
+			employeeRepository.createIndexes(indexes);
+			clearCaches();
+			employeeChangeLog.reset();
+		}
+		return result(name, employees, file.toFile().length(), startTime, "Restored");
+	}
+
+	/**
+	 * Resolves the snapshot file of the given name.
+	 *
+	 * @param name the snapshot name
+	 * @return the existing snapshot file
+	 */
+	public Path snapshotFile(String name) {
+		if (!SNAPSHOT_NAME.matcher(name).matches()) {
+			throw new InvalidRequestException(
+					messageSource.getMessage("error.snapshot.name.invalid", new Object[] { name }, Locale.ENGLISH));
+		}
+		Path file = Paths.get(snapshotDir).resolve(name);
+		if (!Files.isRegularFile(file)) {
+			throw new RecordNotFoundException(
+					messageSource.getMessage("error.snapshot.notfound", new Object[] { name }, Locale.ENGLISH));
+		}
+		return file;
+	}
+
+	private void clearCaches() {
+		for (String cacheName : new String[] { CacheConfig.EMPLOYEE, CacheConfig.MISSING_EMPLOYEE }) {
+			Cache cache = cacheManager.getCache(cacheName);
+			if (cache != null) {
+				cache.clear();
+			}
+		}
+	}
+
+	private static EmployeeSnapshotResult result(String name, long employees, long bytes, long startTime,
+			String action) {
+		long elapsedNanos = System.nanoTime() - startTime;
+		double rowsPerSecond = elapsedNanos == 0 ? 0 : employees * 1_000_000_000d / elapsedNanos;
+		log.info("{} {} employees in snapshot {} of {} bytes at {} rows/s", action, employees, name, bytes,
+				Math.round(rowsPerSecond));
+		return EmployeeSnapshotResult.builder().name(name).employees(employees).bytes(bytes)
+				.elapsedMillis(elapsedNanos / 1_000_000).rowsPerSecond(rowsPerSecond).build();
+	}
+}
@@ -0,0 +1,210 @@
+package jp.co.axa.apidemo.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import jp.co.axa.apidemo.entities.Employee;
+
+/**
+ * Writes employees to a columnar snapshot file. The rows are buffered in
+ * direct buffers, one per column, and written as one block every
+ * {@code blockRows} rows, so the memory used does not depend on the number of
+ * employees.
+ *
+ * <pre>
+ * header  int magic, int format version
+ * block   int rows, int name bytes, int CRC-32 of the columns,
+ *         long[rows] ids, long[rows] versions, long[rows] salaries in cents,
+ *         int[rows] department codes, int[rows] name lengths, name bytes in UTF-8
+ * footer  int departments, per department int length and UTF-8 bytes, long rows
+ * trailer long footer position, int magic
+ * </pre>
+ *
+ * A null value is written as {@link #NULL_LONG}, or as -1 for a department
+ * code or a name length. The departments are dictionary encoded, their codes
+ * index the footer dictionary.
+ */
+public class EmployeeSnapshotWriter implements Closeable {
+
+	static final int MAGIC = 0x454D5053;
+
+	static final int FORMAT_VERSION = 2;
+
+	static final int HEADER_BYTES = 8;
+
+	static final int BLOCK_HEADER_BYTES = 12;
+
+	/** Bytes of the fixed-size columns of one row. */
+	static final int FIXED_ROW_BYTES = 8 + 8 + 8 + 4 + 4;
+
+	static final int TRAILER_BYTES = 12;
+
+	static final int SALARY_SCALE = 2;
+
+	static final long NULL_LONG = Long.MIN_VALUE;
+
+	private final FileChannel channel;
+
+	private final int blockRows;
+
+	private final ByteBuffer blockHeader = ByteBuffer.allocateDirect(BLOCK_HEADER_BYTES);
+
+	private final CRC32 checksum = new CRC32();
+
+	private final ByteBuffer ids;
+
+	private final ByteBuffer versions;
+
+	private final ByteBuffer salaries;
+
+	private final ByteBuffer departments;
+
+	private final ByteBuffer nameLengths;
+
+	private ByteBuffer names;
+
+	private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+
+	private int rows;
+
+	private long totalRows;
+
+	/**
+	 * Creates the snapshot file and writes its header.
+	 *
+	 * @param file      the file, it must not exist
+	 * @param blockRows the number of rows per block
+	 * @throws IOException if the file can not be written
+	 */
+	public EmployeeSnapshotWriter(Path file, int blockRows) throws IOException {
+		this.blockRows = blockRows;
+		ids = ByteBuffer.allocateDirect(blockRows * 8);
+		versions = ByteBuffer.allocateDirect(blockRows * 8);
+		salaries = ByteBuffer.allocateDirect(blockRows * 8);
+		departments = ByteBuffer.allocateDirect(blockRows * 4);
+		nameLengths = ByteBuffer.allocateDirect(blockRows * 4);
+		names = ByteBuffer.allocateDirect(blockRows * 16);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION);
+		header.flip();
+		writeFully(header);
+	}
+
+	/**
+	 * Adds one employee to the snapshot.
+	 *
+	 * @param employee the employee
+	 * @throws IOException if the block can not be written
+	 */
+	public void write(Employee employee) throws IOException {
+		ids.putLong(employee.getId());
+		versions.putLong(employee.getVersion() == null ? NULL_LONG : employee.getVersion());
+		salaries.putLong(toCents(employee.getSalary()));
+		departments.putInt(employee.getDepartment() == null ? -1
+				: dictionary.computeIfAbsent(employee.getDepartment(), department -> dictionary.size()));
+		if (employee.getName() == null) {
+			nameLengths.putInt(-1);
+		} else {
+			byte[] name = employee.getName().getBytes(StandardCharsets.UTF_8);
+			nameLengths.putInt(name.length);
+			ensureNameCapacity(name.length);
+			names.put(name);
+		}
+		totalRows++;
+		if (++rows == blockRows) {
+			writeBlock();
+		}
+	}
+
+	/**
+	 * Returns the number of employees written so far.
+	 *
+	 * @return the row count
+	 */
+	public long getRows() {
+		return totalRows;
+	}
+
+	/**
+	 * Writes the last block, the dictionary and the trailer, and forces the file
+	 * to the disk.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			writeBlock();
+			long footerPosition = channel.position();
+			int footerBytes = 4 + 8;
+			for (String department : dictionary.keySet()) {
+				footerBytes += 4 + department.getBytes(StandardCharsets.UTF_8).length;
+			}
+			ByteBuffer footer = ByteBuffer.allocate(footerBytes + TRAILER_BYTES).putInt(dictionary.size());
+			for (String department : dictionary.keySet()) {
+				byte[] bytes = department.getBytes(StandardCharsets.UTF_8);
+				footer.putInt(bytes.length).put(bytes);
+			}
+			footer.putLong(totalRows).putLong(footerPosition).putInt(MAGIC);
+			footer.flip();
+			writeFully(footer);
+			channel.force(true);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		if (rows == 0) {
+			return;
+		}
+		ByteBuffer[] block = { blockHeader, ids, versions, salaries, departments, nameLengths, names };
+		checksum.reset();
+		for (int i = 1; i < block.length; i++) {
+			block[i].flip();
+			checksum.update(block[i].duplicate());
+		}
+		blockHeader.clear();
+		blockHeader.putInt(rows).putInt(names.limit()).putInt((int) checksum.getValue());
+		blockHeader.flip();
+		writeFully(block);
+		for (ByteBuffer column : block) {
+			column.clear();
+		}
+		rows = 0;
+	}
+
+	private void ensureNameCapacity(int length) {
+		if (names.remaining() < length) {
+			ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(names.capacity() * 2, names.position() + length));
+			names.flip();
+			larger.put(names);
+			names = larger;
+		}
+	}
+
+	private void writeFully(ByteBuffer... buffers) throws IOException {
+		long remaining = 0;
+		for (ByteBuffer buffer : buffers) {
+			remaining += buffer.remaining();
+		}
+		while (remaining > 0) {
+			remaining -= channel.write(buffers);
+		}
+	}
+
+	private static long toCents(BigDecimal salary) {
+		if (salary == null) {
+			return NULL_LONG;
+		}
+		return salary.setScale(SALARY_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+	}
+}
@@ -0,0 +1,426 @@
+package jp.co.axa.apidemo.writebehind;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jp.co.axa.apidemo.exception.RecordNotFoundException;
+import jp.co.axa.apidemo.exception.ServiceOverloadedException;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.services.EmployeeService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind queue of employee updates, enabled by
+ * {@code employee.write-behind.enabled}. Updates wait in a bounded queue keyed
+ * by employee id, a later update of a queued employee replaces the earlier one,
+ * and a single flusher commits them in groups of up to
+ * {@code employee.write-behind.batch-size}, at the latest
+ * {@code employee.write-behind.max-delay} after the oldest was queued. The
+ * employee cache only ever sees committed updates, it is written through when
+ * a group is committed. When a group fails, its updates are retried one by one
+ * so a single bad update does not fail the others. The retries go through the
+ * same group update, which the service concurrency limits leave out, and a
+ * transient database failure is retried up to {@code employee.write-behind.retries}
+ * times, with a delay doubling from {@code employee.write-behind.retry-backoff}.
+ * <p>
+ * A synchronous write of an employee must not be overtaken by its queued
+ * update, so it first calls {@link #drain(Long)}, which commits the queued
+ * update of the employee, or waits for the group holding it.
+ */
+@Slf4j
+@Component
+public class EmployeeUpdateQueue {
+
+	@Value("${employee.write-behind.enabled:false}")
+	private boolean enabled;
+
+	@Value("${employee.write-behind.capacity:10000}")
+	private int capacity;
+
+	@Value("${employee.write-behind.batch-size:500}")
+	private int batchSize;
+
+	@Value("${employee.write-behind.max-delay:50ms}")
+	private Duration maxDelay;
+
+	/** Time a caller waiting for its commit waits at most. */
+	@Value("${employee.write-behind.ack-timeout:5s}")
+	private Duration ackTimeout;
+
+	@Value("${employee.write-behind.retries:3}")
+	private int retries;
+
+	@Value("${employee.write-behind.retry-backoff:50ms}")
+	private Duration retryBackoff;
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private MessageSource messageSource;
+
+	@Autowired
+	private ObjectProvider<MeterRegistry> meterRegistry;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition notEmpty = lock.newCondition();
+
+	private final Condition full = lock.newCondition();
+
+	/** Queued updates in the order their employee was first queued, guarded by lock. */
+	private final LinkedHashMap<Long, PendingUpdate> pending = new LinkedHashMap<>();
+
+	/** Updates of the group being flushed by employee id, guarded by lock. */
+	private final Map<Long, CompletableFuture<EmployeeDto>> flushing = new HashMap<>();
+
+	/** Guarded by lock. */
+	private long oldestQueuedAt;
+
+	/** Guarded by lock. */
+	private boolean running;
+
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	private final AtomicLong committedCount = new AtomicLong();
+
+	private Thread flusher;
+
+	@PostConstruct
+	public void start() {
+		if (!enabled) {
+			return;
+		}
+		running = true;
+		flusher = new Thread(this::flushUntilStopped, "employee-write-behind");
+		flusher.start();
+		MeterRegistry registry = meterRegistry.getIfAvailable();
+		if (registry != null) {
+			registry.gauge("employee.write-behind.pending", Tags.empty(), this, EmployeeUpdateQueue::getPendingCount);
+			registry.more().counter("employee.write-behind.coalesced", Tags.empty(), coalescedCount);
+			registry.more().counter("employee.write-behind.committed", Tags.empty(), committedCount);
+		}
+		log.info("Employee write-behind started with a queue of {}, groups of {} within {} ms", capacity,
+				batchSize, maxDelay.toMillis());
+	}
+
+	/**
+	 * Tells whether updates go through this queue.
+	 *
+	 * @return true if write-behind is enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Queue an update, replacing the queued update of the same employee if any.
+	 * The returned future completes with the committed employee once the group
+	 * holding the update is committed; it is shared by all the coalesced updates.
+	 *
+	 * @param employeeId  the employee id
+	 * @param employeeDto the new details
+	 * @return the future committed employee
+	 * @throws ServiceOverloadedException if the queue is full
+	 */
+	public CompletableFuture<EmployeeDto> enqueue(Long employeeId, EmployeeDto employeeDto) {
+		lock.lock();
+		try {
+			if (!running) {
+				throw new ServiceOverloadedException("Employee write-behind is stopped");
+			}
+			PendingUpdate queued = pending.get(employeeId);
+			if (queued != null) {
+				queued.employeeDto = employeeDto;
+				coalescedCount.incrementAndGet();
+				return queued.future;
+			}
+			if (pending.size() >= capacity) {
+				throw new ServiceOverloadedException("Employee write-behind queue is full");
+			}
+			if (pending.isEmpty()) {
+				oldestQueuedAt = System.nanoTime();
+				notEmpty.signal();
+			}
+			PendingUpdate update = new PendingUpdate(employeeDto);
+			pending.put(employeeId, update);
+			if (pending.size() >= batchSize) {
+				full.signal();
+			}
+			return update.future;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits for a queued update to be committed.
+	 *
+	 * @param committed the future returned by {@link #enqueue(Long, EmployeeDto)}
+	 * @return the committed employee
+	 * @throws ServiceOverloadedException if the commit takes longer than the ack
+	 *                                    timeout, the update stays queued
+	 */
+	public EmployeeDto awaitCommit(CompletableFuture<EmployeeDto> committed) {
+		try {
+			return committed.get(ackTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			throw new IllegalStateException(ex.getCause());
+		} catch (TimeoutException ex) {
+			throw new ServiceOverloadedException("Employee update not committed in time");
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new ServiceOverloadedException("Interrupted while waiting for the employee update");
+		}
+	}
+
+	/**
+	 * Commits the queued update of an employee, if any, before a synchronous
+	 * write of the same employee. When the update is already being flushed with
+	 * its group, waits for the group instead. The outcome of the queued update is
+	 * left to its own future, a failure of it does not fail the caller.
+	 *
+	 * @param employeeId the employee id
+	 * @throws ServiceOverloadedException if the group takes longer than the ack
+	 *                                    timeout
+	 */
+	public void drain(Long employeeId) {
+		if (!enabled) {
+			return;
+		}
+		CompletableFuture<EmployeeDto> inFlight;
+		PendingUpdate queued;
+		lock.lock();
+		try {
+			inFlight = flushing.get(employeeId);
+			queued = pending.remove(employeeId);
+		} finally {
+			lock.unlock();
+		}
+		if (inFlight != null) {
+			try {
+				awaitCommit(inFlight);
+			} catch (ServiceOverloadedException ex) {
+				throw ex;
+			} catch (RuntimeException ex) {
+				log.debug("Queued update of employee {} failed before a synchronous write", employeeId, ex);
+			}
+		}
+		if (queued != null && !commitOne(employeeId, queued)) {
+			log.warn("Queued update of employee {} failed before a synchronous write", employeeId);
+		}
+	}
+
+	public int getPendingCount() {
+		lock.lock();
+		try {
+			return pending.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops taking updates and commits the queued ones before returning.
+	 */
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		lock.lock();
+		try {
+			running = false;
+			notEmpty.signal();
+			full.signal();
+		} finally {
+			lock.unlock();
+		}
+		if (flusher != null) {
+			flusher.join();
+		}
+	}
+
+	private void flushUntilStopped() {
+		Map<Long, PendingUpdate> group;
+		try {
+			while (!(group = takeGroup()).isEmpty()) {
+				try {
+					flush(group);
+				} catch (RuntimeException ex) {
+					// keep the flusher alive for the next groups
+					log.error("Flushing a group of {} employee updates failed", group.size(), ex);
+					group.values().forEach(update -> update.future.completeExceptionally(ex));
+				} finally {
+					lock.lock();
+					try {
+						flushing.keySet().removeAll(group.keySet());
+					} finally {
+						lock.unlock();
+					}
+				}
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits for a group: a full batch, or whatever is queued once the oldest
+	 * update has waited for the maximum delay. Empty once stopped and drained.
+	 */
+	private Map<Long, PendingUpdate> takeGroup() throws InterruptedException {
+		lock.lock();
+		try {
+			while (running && pending.isEmpty()) {
+				notEmpty.await();
+			}
+			long remaining;
+			while (running && pending.size() < batchSize
+					&& (remaining = oldestQueuedAt + maxDelay.toNanos() - System.nanoTime()) > 0) {
+				full.awaitNanos(remaining);
+			}
+			Map<Long, PendingUpdate> group = new LinkedHashMap<>();
+			Iterator<Map.Entry<Long, PendingUpdate>> entries = pending.entrySet().iterator();
+			while (entries.hasNext() && group.size() < batchSize) {
+				Map.Entry<Long, PendingUpdate> entry = entries.next();
+				group.put(entry.getKey(), entry.getValue());
+				flushing.put(entry.getKey(), entry.getValue().future);
+				entries.remove();
+			}
+			// what is left over was queued before the group was taken, and is due now
+			oldestQueuedAt = System.nanoTime() - (pending.isEmpty() ? 0 : maxDelay.toNanos());
+			return group;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void flush(Map<Long, PendingUpdate> group) {
+		Map<Long, EmployeeDto> employeeDtos = new LinkedHashMap<>();
+		group.forEach((employeeId, update) -> employeeDtos.put(employeeId, update.employeeDto));
+		Map<Long, EmployeeDto> updated;
+		try {
+			updated = employeeService.updateEmployees(employeeDtos);
+		} catch (RuntimeException ex) {
+			log.warn("Group of {} employee updates failed, retrying them one by one: {}", group.size(),
+					ex.toString());
+			flushOneByOne(group);
+			return;
+		}
+		committedCount.addAndGet(updated.size());
+		group.forEach((employeeId, update) -> {
+			EmployeeDto updatedDto = updated.get(employeeId);
+			if (updatedDto != null) {
+				update.future.complete(updatedDto);
+			} else {
+				update.future.completeExceptionally(notFound());
+			}
+		});
+	}
+
+	private void flushOneByOne(Map<Long, PendingUpdate> group) {
+		List<Long> failed = new ArrayList<>();
+		group.forEach((employeeId, update) -> {
+			if (!commitOne(employeeId, update)) {
+				failed.add(employeeId);
+			}
+		});
+		if (!failed.isEmpty()) {
+			log.warn("Employee updates failed for ids {}", failed);
+		}
+	}
+
+	/**
+	 * Commits one update on its own and completes its future.
+	 *
+	 * @return true if it was committed
+	 */
+	private boolean commitOne(Long employeeId, PendingUpdate update) {
+		try {
+			EmployeeDto updatedDto = updateWithRetries(employeeId, update.employeeDto);
+			if (updatedDto == null) {
+				throw notFound();
+			}
+			update.future.complete(updatedDto);
+			committedCount.incrementAndGet();
+			return true;
+		} catch (RuntimeException ex) {
+			update.future.completeExceptionally(ex);
+			return false;
+		}
+	}
+
+	/**
+	 * Updates one employee, retrying a transient failure with an exponential
+	 * backoff.
+	 *
+	 * @return the updated employee, null if it does not exist
+	 */
+	private EmployeeDto updateWithRetries(Long employeeId, EmployeeDto employeeDto) {
+		long backoff = retryBackoff.toMillis();
+		for (int attempt = 0;; attempt++) {
+			try {
+				return employeeService.updateEmployees(Collections.singletonMap(employeeId, employeeDto))
+						.get(employeeId);
+			} catch (TransientDataAccessException | TransactionException ex) {
+				if (attempt >= retries) {
+					throw ex;
+				}
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw ex;
+				}
+				backoff *= 2;
+			}
+		}
+	}
+
+	private RecordNotFoundException notFound() {
+		return new RecordNotFoundException(
+				messageSource.getMessage("error.employee.notfound.update", null, Locale.ENGLISH));
+	}
+
+	/**
+	 * Latest queued details of an employee and the future of their commit.
+	 */
+	private static class PendingUpdate {
+
+		private EmployeeDto employeeDto;
+
+		private final CompletableFuture<EmployeeDto> future = new CompletableFuture<>();
+
+		PendingUpdate(EmployeeDto employeeDto) {
+			this.employeeDto = employeeDto;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package jp.co.axa.apidemo.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EmployeeTaskExecutorTest {
+
+	@Mock
+	private ObjectProvider<DataSource> dataSource;
+
+	@Mock
+	private ObjectProvider<MeterRegistry> meterRegistry;
+
+	@InjectMocks
+	private EmployeeTaskExecutor employeeTaskExecutor;
+
+	private MeterRegistry registry;
+
+	@BeforeEach
+	public void setup() {
+		MockitoAnnotations.initMocks(this);
+		registry = new SimpleMeterRegistry();
+		when(meterRegistry.getIfAvailable()).thenReturn(registry);
+		ReflectionTestUtils.setField(employeeTaskExecutor, "poolSize", 1);
+		ReflectionTestUtils.setField(employeeTaskExecutor, "queueCapacity", 1);
+		employeeTaskExecutor.start();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		employeeTaskExecutor.shutdown();
+	}
+
+	@Test
+	void testSubmit() throws Exception {
+		assertEquals("done", employeeTaskExecutor.submit(() -> "done").get(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void testSubmit_RejectedWhenSaturated() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch running = new CountDownLatch(1);
+		employeeTaskExecutor.submit(() -> {
+			running.countDown();
+			return await(release);
+		});
+		running.await(1, TimeUnit.SECONDS);
+		employeeTaskExecutor.submit(() -> await(release));
+
+		assertThrows(RejectedExecutionException.class, () -> employeeTaskExecutor.submit(() -> "rejected"));
+
+		release.countDown();
+		assertEquals(1L, employeeTaskExecutor.getRejectedCount());
+		assertEquals(1.0, registry.get("employee.async.rejected").functionCounter().count());
+	}
+
+	private static boolean await(CountDownLatch latch) {
+		try {
+			return latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package jp.co.axa.apidemo.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.services.DepartmentService;
+import jp.co.axa.apidemo.services.EmployeeService;
+
+class EmployeeCacheWarmerTest {
+
+	@Mock
+	private EmployeeService employeeService;
+
+	@Mock
+	private DepartmentService departmentService;
+
+	@Mock
+	private CacheManager cacheManager;
+
+	@InjectMocks
+	private EmployeeCacheWarmer employeeCacheWarmer;
+
+	private Path hotEmployeesFile;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		hotEmployeesFile = Files.createTempFile("hot-employees", ".txt");
+		ReflectionTestUtils.setField(employeeCacheWarmer, "hotEmployeesFile", hotEmployeesFile.toString());
+		ReflectionTestUtils.setField(employeeCacheWarmer, "warmUpSize", 2);
+	}
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(hotEmployeesFile);
+	}
+
+	@Test
+	void testSaveHotEmployeeIds() throws Exception {
+		CaffeineCache cache = new CaffeineCache(CacheConfig.EMPLOYEE, Caffeine.newBuilder().maximumSize(10).build());
+		for (long id = 1; id <= 3; id++) {
+			cache.put(id, EmployeeDto.builder().id(id).build());
+		}
+		when(cacheManager.getCache(CacheConfig.EMPLOYEE)).thenReturn(cache);
+
+		employeeCacheWarmer.saveHotEmployeeIds();
+
+		assertEquals(2, Files.readAllLines(hotEmployeesFile).size());
+	}
+
+	@Test
+	void testRun_PreloadsSavedEmployees() throws Exception {
+		Files.write(hotEmployeesFile, Arrays.asList("7", "3", "5"));
+		when(employeeService.preloadEmployees(Arrays.asList(7L, 3L))).thenReturn(2);
+		assertFalse(employeeCacheWarmer.isWarm());
+
+		employeeCacheWarmer.run(null);
+
+		assertTrue(employeeCacheWarmer.isWarm());
+		verify(employeeService, times(1)).preloadEmployees(Arrays.asList(7L, 3L));
+		verify(employeeService, times(1)).retrieveEmployees(anyLong(), anyInt());
+		verify(employeeService, times(1)).searchEmployees(any(), anyLong(), anyInt());
+		verify(departmentService, times(1)).retrieveDepartmentStats();
+	}
+}
@@ -0,0 +1,61 @@
+package jp.co.axa.apidemo.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+class SingleFlightCaffeineCacheTest {
+
+	@Test
+	void testGet_ConcurrentMissesLoadOnce() throws Exception {
+		SingleFlightCaffeineCache cache = new SingleFlightCaffeineCache("employee", Caffeine.newBuilder().build(),
+				Duration.ZERO, Runnable::run);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get(1L, () -> {
+			loads.incrementAndGet();
+			loading.countDown();
+			release.await();
+			return "loaded";
+		}));
+		assertTrue(loading.await(1, TimeUnit.SECONDS));
+		CompletableFuture<String> second = CompletableFuture
+				.supplyAsync(() -> cache.get(1L, () -> "loaded " + loads.incrementAndGet()));
+		Thread.sleep(200);
+		release.countDown();
+
+		assertEquals("loaded", first.get(1, TimeUnit.SECONDS));
+		assertEquals("loaded", second.get(1, TimeUnit.SECONDS));
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getCoalescedCount());
+	}
+
+	@Test
+	void testGet_RefreshesAheadOfExpiry() {
+		AtomicLong nanos = new AtomicLong();
+		SingleFlightCaffeineCache cache = new SingleFlightCaffeineCache("employee",
+				Caffeine.newBuilder().ticker(nanos::get).expireAfterWrite(10, TimeUnit.MINUTES).build(),
+				Duration.ofMinutes(8), Runnable::run);
+		cache.put(1L, "old");
+
+		assertEquals("old", cache.get(1L, () -> "new"));
+		nanos.addAndGet(TimeUnit.MINUTES.toNanos(9));
+		assertEquals("old", cache.get(1L, () -> "new"));
+		assertEquals("new", cache.get(1L, () -> "newer"));
+
+		assertEquals(1, cache.getRefreshCount());
+		assertEquals(0, cache.getCoalescedCount());
+	}
+}
@@ -0,0 +1,201 @@
+package jp.co.axa.apidemo.changes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jp.co.axa.apidemo.exception.ServiceOverloadedException;
+import jp.co.axa.apidemo.model.EmployeeChange;
+import jp.co.axa.apidemo.model.EmployeeChange.ChangeType;
+import jp.co.axa.apidemo.model.EmployeeDto;
+
+class EmployeeChangeLogTest {
+
+	private EmployeeChangeLog changeLog;
+
+	private BlockingQueue<String> received;
+
+	private EmployeeChangeListener listener;
+
+	@BeforeEach
+	public void setup() {
+		changeLog = new EmployeeChangeLog();
+		ReflectionTestUtils.setField(changeLog, "capacity", 3);
+		ReflectionTestUtils.setField(changeLog, "subscriberCapacity", 2);
+		ReflectionTestUtils.setField(changeLog, "maxSubscribers", 2);
+		changeLog.start();
+		received = new LinkedBlockingQueue<>();
+		listener = new EmployeeChangeListener() {
+
+			@Override
+			public void onChange(EmployeeChange change) {
+				received.add(change.getSequence() + ":" + change.getType());
+			}
+
+			@Override
+			public void onReset(long sequence) {
+				received.add(sequence + ":RESET");
+			}
+		};
+	}
+
+	@AfterEach
+	public void tearDown() {
+		changeLog.shutdown();
+	}
+
+	@Test
+	void testSubscribe_ReplaysRetainedChanges() throws InterruptedException {
+		changeLog.append(ChangeType.CREATED, 1L, null);
+		changeLog.append(ChangeType.UPDATED, 1L, null);
+
+		changeLog.subscribe(1L, listener);
+		changeLog.append(ChangeType.DELETED, 1L, null);
+
+		assertEquals("2:UPDATED", received.poll(1, TimeUnit.SECONDS));
+		assertEquals("3:DELETED", received.poll(1, TimeUnit.SECONDS));
+		assertEquals(3L, changeLog.getLastSequence());
+	}
+
+	@Test
+	void testSubscribe_ResetsWhenChangesAreNoLongerRetained() throws InterruptedException {
+		for (long id = 1; id <= 5; id++) {
+			changeLog.append(ChangeType.CREATED, id, null);
+		}
+
+		changeLog.subscribe(1L, listener);
+		changeLog.append(ChangeType.DELETED, 1L, null);
+		changeLog.unsubscribe(listener);
+		changeLog.append(ChangeType.DELETED, 2L, null);
+
+		assertEquals("5:RESET", received.poll(1, TimeUnit.SECONDS));
+		assertEquals("6:DELETED", received.poll(1, TimeUnit.SECONDS));
+		assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void testReset_ResetsListenersAndDropsChanges() throws InterruptedException {
+		changeLog.append(ChangeType.CREATED, 1L, null);
+		changeLog.subscribe(listener);
+
+		changeLog.reset();
+		changeLog.subscribe(0L, listener);
+
+		assertEquals("1:RESET", received.poll(1, TimeUnit.SECONDS));
+		assertEquals("1:RESET", received.poll(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void testAppend_RecordedOnceCommitted() throws InterruptedException {
+		changeLog.subscribe(listener);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			changeLog.append(ChangeType.UPDATED, 1L, EmployeeDto.builder().id(1L).version(3L).build());
+			changeLog.append(ChangeType.DELETED, 2L, null);
+			assertEquals(0L, changeLog.getLastSequence());
+
+			TransactionSynchronizationManager.getSynchronizations().get(0).afterCommit();
+			TransactionSynchronizationManager.getSynchronizations().get(1)
+					.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertEquals("1:UPDATED", received.poll(1, TimeUnit.SECONDS));
+		assertEquals(1L, changeLog.getLastSequence());
+		assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void testAppend_SlowListenerIsResetWithoutBlockingOthers() throws InterruptedException {
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		BlockingQueue<String> slowReceived = new LinkedBlockingQueue<>();
+		changeLog.subscribe(new EmployeeChangeListener() {
+
+			@Override
+			public void onChange(EmployeeChange change) {
+				slowReceived.add(change.getSequence() + ":" + change.getType());
+				blocked.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			@Override
+			public void onReset(long sequence) {
+				slowReceived.add(sequence + ":RESET");
+			}
+		});
+		changeLog.subscribe(listener);
+
+		changeLog.append(ChangeType.CREATED, 1L, null);
+		blocked.await(1, TimeUnit.SECONDS);
+		for (long id = 2; id <= 5; id++) {
+			changeLog.append(ChangeType.CREATED, id, null);
+		}
+
+		// the other listener gets the last change while the slow one is blocked
+		String last;
+		do {
+			last = received.poll(1, TimeUnit.SECONDS);
+		} while (last != null && !last.equals("5:CREATED"));
+		assertEquals("5:CREATED", last);
+		release.countDown();
+		assertEquals("1:CREATED", slowReceived.poll(1, TimeUnit.SECONDS));
+		assertEquals("4:RESET", slowReceived.poll(1, TimeUnit.SECONDS));
+		assertEquals("5:CREATED", slowReceived.poll(1, TimeUnit.SECONDS));
+		assertNull(slowReceived.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void testSubscribe_RefusedBeyondMaxSubscribers() throws InterruptedException {
+		EmployeeChangeListener other = new EmployeeChangeListener() {
+
+			@Override
+			public void onChange(EmployeeChange change) {
+			}
+
+			@Override
+			public void onReset(long sequence) {
+			}
+		};
+		changeLog.subscribe(listener);
+		changeLog.subscribe(other);
+
+		assertThrows(ServiceOverloadedException.class, () -> changeLog.subscribe(listener));
+		changeLog.unsubscribe(other);
+		changeLog.subscribe(other);
+		changeLog.append(ChangeType.CREATED, 1L, null);
+
+		assertEquals("1:CREATED", received.poll(1, TimeUnit.SECONDS));
+		assertEquals(2, ((ThreadPoolExecutor) ReflectionTestUtils.getField(changeLog, "deliveryExecutor"))
+				.getMaximumPoolSize());
+	}
+
+	@Test
+	void testSubscribe_ResetsOnAnotherEpoch() throws InterruptedException {
+		changeLog.append(ChangeType.CREATED, 1L, null);
+		changeLog.append(ChangeType.UPDATED, 1L, null);
+
+		changeLog.subscribe(changeLog.getEpoch() - 1, 1L, listener);
+
+		assertEquals("2:RESET", received.poll(1, TimeUnit.SECONDS));
+		assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+	}
+}
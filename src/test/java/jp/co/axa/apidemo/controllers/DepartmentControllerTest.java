@@ -0,0 +1,124 @@
+package jp.co.axa.apidemo.controllers;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jp.co.axa.apidemo.exception.InvalidRequestException;
+import jp.co.axa.apidemo.exception.RecordNotFoundException;
+import jp.co.axa.apidemo.model.DepartmentStatsDto;
+import jp.co.axa.apidemo.model.SalaryPercentilesDto;
+import jp.co.axa.apidemo.model.SalaryRangeDto;
+import jp.co.axa.apidemo.services.DepartmentService;
+
+@WebMvcTest(DepartmentController.class)
+class DepartmentControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private DepartmentService departmentService;
+
+	private static final String BASE_URL = "/api/v1/departments";
+
+	private DepartmentStatsDto financeStats;
+	private DepartmentStatsDto lifeStats;
+
+	@BeforeEach
+	void setup() {
+		financeStats = new DepartmentStatsDto("Finance", 2L, BigDecimal.valueOf(300), 150d, BigDecimal.valueOf(100),
+				BigDecimal.valueOf(200));
+		lifeStats = new DepartmentStatsDto("Life Insurance Dept", 1L, BigDecimal.TEN, 10d, BigDecimal.TEN,
+				BigDecimal.TEN);
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetDepartmentStats() throws Exception {
+		when(departmentService.retrieveDepartmentStats()).thenReturn(Arrays.asList(financeStats, lifeStats));
+
+		mockMvc.perform(get(BASE_URL + "/stats")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].department").value("Finance")).andExpect(jsonPath("$[0].count").value(2))
+				.andExpect(jsonPath("$[0].averageSalary").value(150.0))
+				.andExpect(jsonPath("$[1].department").value("Life Insurance Dept"));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetDepartmentStats_ByDepartment() throws Exception {
+		when(departmentService.getDepartmentStats("Finance")).thenReturn(financeStats);
+
+		mockMvc.perform(get(BASE_URL + "/Finance/stats")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalSalary").value(300)).andExpect(jsonPath("$.minSalary").value(100))
+				.andExpect(jsonPath("$.maxSalary").value(200));
+
+		verify(departmentService, times(1)).getDepartmentStats("Finance");
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetDepartmentStats_RecordNotFoundException() throws Exception {
+		when(departmentService.getDepartmentStats("Unknown"))
+				.thenThrow(new RecordNotFoundException("Department has no employee, please check the input."));
+
+		mockMvc.perform(get(BASE_URL + "/Unknown/stats")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetSalaryPercentiles() throws Exception {
+		Map<String, BigDecimal> percentiles = new LinkedHashMap<>();
+		percentiles.put("50", BigDecimal.valueOf(150));
+		percentiles.put("99.9", BigDecimal.valueOf(200));
+		when(departmentService.getSalaryPercentiles("Finance", Arrays.asList(50d, 99.9d))).thenReturn(
+				SalaryPercentilesDto.builder().department("Finance").employees(2).percentiles(percentiles).build());
+
+		mockMvc.perform(get(BASE_URL + "/Finance/salary/percentiles").param("p", "50,99.9"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.employees").value(2))
+				.andExpect(jsonPath("$.percentiles.50").value(150))
+				.andExpect(jsonPath("$.percentiles['99.9']").value(200));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetSalaryPercentiles_InvalidPercentile() throws Exception {
+		when(departmentService.getSalaryPercentiles("Finance", Arrays.asList(150d)))
+				.thenThrow(new InvalidRequestException("Percentile 150.0 is invalid"));
+
+		mockMvc.perform(get(BASE_URL + "/Finance/salary/percentiles").param("p", "150"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testCountSalaries() throws Exception {
+		when(departmentService.countSalaries("Finance", new BigDecimal("100"), null))
+				.thenReturn(SalaryRangeDto.builder().department("Finance").minSalary(new BigDecimal("100"))
+						.employees(2).build());
+
+		mockMvc.perform(get(BASE_URL + "/Finance/salary/count").param("min", "100")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.employees").value(2)).andExpect(jsonPath("$.minSalary").value(100));
+	}
+
+	@Test
+	void testGetDepartmentStats_UnauthorizedAccess() throws Exception {
+		mockMvc.perform(get(BASE_URL + "/stats")).andExpect(status().isUnauthorized());
+	}
+}
@@ -0,0 +1,118 @@
+package jp.co.axa.apidemo.controllers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import jp.co.axa.apidemo.async.EmployeeTaskExecutor;
+import jp.co.axa.apidemo.exception.RecordNotFoundException;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.services.EmployeeService;
+import jp.co.axa.apidemo.writebehind.EmployeeUpdateQueue;
+
+@WebMvcTest(EmployeeAsyncController.class)
+class EmployeeAsyncControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private EmployeeService employeeService;
+
+	@MockBean
+	private EmployeeTaskExecutor employeeTaskExecutor;
+
+	@MockBean
+	private EmployeeUpdateQueue employeeUpdateQueue;
+
+	private static final String BASE_URL = "/api/v1/async/employees";
+
+	private EmployeeDto firstEmployeeDto;
+
+	@BeforeEach
+	void setup() {
+		firstEmployeeDto = EmployeeDto.builder().id(1L).name("Trideb chapagai").department("Non-Life Insurance Dept")
+				.salary(BigDecimal.TEN).version(2L).build();
+		when(employeeTaskExecutor.submit(any())).thenAnswer(invocation -> {
+			Supplier<?> task = invocation.getArgument(0);
+			CompletableFuture<Object> future = new CompletableFuture<>();
+			try {
+				future.complete(task.get());
+			} catch (RuntimeException exception) {
+				future.completeExceptionally(exception);
+			}
+			return future;
+		});
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployee() throws Exception {
+		when(employeeService.getEmployee(1L)).thenReturn(firstEmployeeDto);
+
+		MvcResult result = mockMvc.perform(get(BASE_URL + "/1")).andExpect(request().asyncStarted()).andReturn();
+
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andExpect(jsonPath("$.id").value(1))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployee_RecordNotFoundException() throws Exception {
+		when(employeeService.getEmployee(1L))
+				.thenThrow(new RecordNotFoundException("Employee not found for your query, please check the input."));
+
+		MvcResult result = mockMvc.perform(get(BASE_URL + "/1")).andExpect(request().asyncStarted()).andReturn();
+
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testUpdateEmployee() throws Exception {
+		when(employeeService.updateEmployee(any(EmployeeDto.class), any())).thenReturn(firstEmployeeDto);
+
+		MvcResult result = mockMvc.perform(put(BASE_URL + "/1").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\": \"Updated Name\", \"salary\": 100, \"department\": \"Updated Department\"}"))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+		verify(employeeService, times(1)).updateEmployee(any(EmployeeDto.class), any());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployee_ExecutorSaturated() throws Exception {
+		doThrow(new RejectedExecutionException("saturated")).when(employeeTaskExecutor).submit(any());
+
+		mockMvc.perform(get(BASE_URL + "/1")).andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+		verify(employeeService, times(0)).getEmployee(1L);
+	}
+}
@@ -0,0 +1,103 @@
+package jp.co.axa.apidemo.controllers;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jp.co.axa.apidemo.changes.EmployeeChangeListener;
+import jp.co.axa.apidemo.changes.EmployeeChangeLog;
+import jp.co.axa.apidemo.exception.ServiceOverloadedException;
+import jp.co.axa.apidemo.model.EmployeeChange;
+import jp.co.axa.apidemo.model.EmployeeChange.ChangeType;
+import jp.co.axa.apidemo.model.EmployeeDto;
+
+@WebMvcTest(EmployeeChangeController.class)
+class EmployeeChangeControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private EmployeeChangeLog employeeChangeLog;
+
+	private static final String BASE_URL = "/api/v1/employees/changes";
+
+	private static final long EPOCH = 1700000000000L;
+
+	@BeforeEach
+	public void setup() {
+		when(employeeChangeLog.getEpoch()).thenReturn(EPOCH);
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testStreamEmployeeChanges_ResumesAfterLastEventId() throws Exception {
+		EmployeeDto employeeDto = EmployeeDto.builder().id(7L).name("Trideb Chapagai").department("Finance")
+				.salary(BigDecimal.TEN).version(0L).build();
+		doAnswer(invocation -> {
+			invocation.<EmployeeChangeListener>getArgument(2)
+					.onChange(new EmployeeChange(6L, ChangeType.CREATED, 7L, 0L, employeeDto, 0L));
+			return null;
+		}).when(employeeChangeLog).subscribe(eq(EPOCH), eq(5L), any());
+
+		mockMvc.perform(get(BASE_URL).header("Last-Event-ID", EPOCH + "-5")).andExpect(request().asyncStarted())
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("id:" + EPOCH + "-6\nevent:created\n")))
+				.andExpect(content().string(containsString("\"employeeId\":7")));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testStreamEmployeeChanges_ResetWhenTooFarBehind() throws Exception {
+		doAnswer(invocation -> {
+			invocation.<EmployeeChangeListener>getArgument(2).onReset(42L);
+			return null;
+		}).when(employeeChangeLog).subscribe(eq(EPOCH), eq(1L), any());
+
+		mockMvc.perform(get(BASE_URL).param("after", EPOCH + "-1")).andExpect(request().asyncStarted()).andExpect(
+				content().string(containsString("id:" + EPOCH + "-42\nevent:reset\ndata:{\"sequence\":42}")));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testStreamEmployeeChanges_UnknownEpochIsPassedOn() throws Exception {
+		mockMvc.perform(get(BASE_URL).header("Last-Event-ID", "5")).andExpect(request().asyncStarted());
+
+		verify(employeeChangeLog).subscribe(eq(0L), eq(0L), any(EmployeeChangeListener.class));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testStreamEmployeeChanges_TooManyConsumers() throws Exception {
+		doThrow(new ServiceOverloadedException("Too many employee change listeners")).when(employeeChangeLog)
+				.subscribe(any(EmployeeChangeListener.class));
+
+		mockMvc.perform(get(BASE_URL)).andExpect(status().isServiceUnavailable());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testStreamEmployeeChanges_LiveOnly() throws Exception {
+		mockMvc.perform(get(BASE_URL)).andExpect(request().asyncStarted());
+
+		verify(employeeChangeLog).subscribe(any(EmployeeChangeListener.class));
+	}
+}
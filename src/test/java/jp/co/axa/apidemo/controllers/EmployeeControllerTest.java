@@ -1,36 +1,72 @@
 package jp.co.axa.apidemo.controllers;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+
+import jp.co.axa.apidemo.converters.BinaryConvertersConfig;
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.exception.InvalidRequestException;
 import jp.co.axa.apidemo.exception.RecordNotFoundException;
+import jp.co.axa.apidemo.exception.ServiceOverloadedException;
+import jp.co.axa.apidemo.model.EmployeeBatchResult;
+import jp.co.axa.apidemo.model.EmployeeBatchResult.RowResult;
+import jp.co.axa.apidemo.model.EmployeeBatchResult.RowStatus;
 import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.model.EmployeeSearchCriteria;
 import jp.co.axa.apidemo.services.EmployeeService;
+import jp.co.axa.apidemo.writebehind.EmployeeUpdateQueue;
 
 @WebMvcTest(EmployeeController.class)
+@Import(BinaryConvertersConfig.class)
 class EmployeeControllerTest {
 
 	@Autowired
@@ -39,6 +75,9 @@ class EmployeeControllerTest {
 	@MockBean
 	private EmployeeService employeeService;
 
+	@MockBean
+	private EmployeeUpdateQueue employeeUpdateQueue;
+
 	private static final String BASE_URL = "/api/v1/employees";
 
 	private EmployeeDto firstEmployeeDto;
@@ -68,6 +107,64 @@ class EmployeeControllerTest {
 				.andExpect(jsonPath("$[1].department").value("Life Insurance Dept"));
 	}
 
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployees_KeysetPage() throws Exception {
+		when(employeeService.retrieveEmployees(1L, 1)).thenReturn(Arrays.asList(secondEmployeeDto));
+
+		mockMvc.perform(get(BASE_URL).param("after", "1").param("limit", "1")).andExpect(status().isOk())
+				.andExpect(header().string(EmployeeController.NEXT_CURSOR_HEADER, "2"))
+				.andExpect(jsonPath("$[0].id").value(2));
+
+		verify(employeeService, times(1)).retrieveEmployees(1L, 1);
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployees_LastKeysetPage() throws Exception {
+		when(employeeService.retrieveEmployees(null, 10)).thenReturn(Arrays.asList(firstEmployeeDto));
+
+		mockMvc.perform(get(BASE_URL).param("limit", "10")).andExpect(status().isOk())
+				.andExpect(header().doesNotExist(EmployeeController.NEXT_CURSOR_HEADER))
+				.andExpect(jsonPath("$[0].id").value(1));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testSearchEmployees() throws Exception {
+		EmployeeSearchCriteria criteria = new EmployeeSearchCriteria();
+		criteria.setDepartment("Life Insurance Dept");
+		criteria.setName("Jo");
+		criteria.setMinSalary(BigDecimal.ONE);
+		when(employeeService.searchEmployees(criteria, null, 100)).thenReturn(Arrays.asList(secondEmployeeDto));
+
+		mockMvc.perform(get(BASE_URL + "/search").param("department", "Life Insurance Dept").param("name", "Jo")
+				.param("minSalary", "1")).andExpect(status().isOk()).andExpect(jsonPath("$[0].id").value(2))
+				.andExpect(header().doesNotExist(EmployeeController.NEXT_CURSOR_HEADER));
+
+		verify(employeeService, times(1)).searchEmployees(criteria, null, 100);
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	@SuppressWarnings("unchecked")
+	void testExportEmployees() throws Exception {
+		doAnswer(invocation -> {
+			Consumer<EmployeeDto> consumer = invocation.getArgument(0);
+			consumer.accept(firstEmployeeDto);
+			consumer.accept(secondEmployeeDto);
+			return null;
+		}).when(employeeService).streamEmployees(any(Consumer.class));
+
+		MvcResult result = mockMvc.perform(get(BASE_URL + "/export")).andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$[0].id").value(1)).andExpect(jsonPath("$[1].id").value(2))
+				.andExpect(jsonPath("$[1].name").value("John Prange"));
+	}
+
 	@Test
 	void testGetEmployees_UnauthorizedAccess() throws Exception {
 		List<EmployeeDto> employees = Arrays.asList(firstEmployeeDto, secondEmployeeDto);
@@ -99,6 +196,20 @@ class EmployeeControllerTest {
 				.andExpect(jsonPath("$.department").value("Non-Life Insurance Dept"));
 	}
 
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployee_Cbor() throws Exception {
+		when(employeeService.getEmployee(1L)).thenReturn(firstEmployeeDto);
+
+		byte[] body = mockMvc.perform(get(BASE_URL + "/1").accept(EmployeeController.APPLICATION_CBOR_VALUE))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(EmployeeController.APPLICATION_CBOR_VALUE))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		assertEquals(firstEmployeeDto, new ObjectMapper(new CBORFactory()).registerModule(new ParameterNamesModule())
+				.readValue(body, EmployeeDto.class));
+	}
+
 	@Test
 	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
 	void testGetEmployee_RecordNotFoundException() throws Exception {
@@ -110,6 +221,16 @@ class EmployeeControllerTest {
 		verify(employeeService, times(1)).getEmployee(1L);
 	}
 
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployee_ConcurrencyLimitReached() throws Exception {
+		when(employeeService.getEmployee(1L))
+				.thenThrow(new ServiceOverloadedException("Concurrency limit of reads reached"));
+
+		mockMvc.perform(get(BASE_URL + "/1")).andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+	}
+
 	@Test
 	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
 	void testSaveEmployee() throws Exception {
@@ -120,6 +241,68 @@ class EmployeeControllerTest {
 		verify(employeeService, times(1)).saveEmployee(eq(firstEmployeeDto));
 	}
 
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	@SuppressWarnings("unchecked")
+	void testSaveEmployees_Ndjson() throws Exception {
+		List<EmployeeDto> received = new ArrayList<>();
+		when(employeeService.saveEmployees(any(Iterator.class))).thenAnswer(invocation -> {
+			Iterator<EmployeeDto> employeeDtos = invocation.getArgument(0);
+			employeeDtos.forEachRemaining(received::add);
+			return EmployeeBatchResult.builder().received(2).inserted(2)
+					.rows(Arrays.asList(new RowResult(0, RowStatus.CREATED, 1L, null),
+							new RowResult(1, RowStatus.CREATED, 2L, null)))
+					.build();
+		});
+
+		mockMvc.perform(post(BASE_URL + "/batch").contentType(EmployeeController.APPLICATION_NDJSON_VALUE)
+				.content("{\"name\":\"Trideb chapagai\",\"salary\":10,\"department\":\"Non-Life Insurance Dept\"}\n"
+						+ "{\"name\":\"John Prange\",\"salary\":1,\"department\":\"Life Insurance Dept\"}\n"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.inserted").value(2))
+				.andExpect(jsonPath("$.rows[1].id").value(2));
+
+		assertEquals(2, received.size());
+		assertEquals("John Prange", received.get(1).getName());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	@SuppressWarnings("unchecked")
+	void testSaveEmployees_Smile() throws Exception {
+		List<EmployeeDto> received = new ArrayList<>();
+		when(employeeService.saveEmployees(any(Iterator.class))).thenAnswer(invocation -> {
+			Iterator<EmployeeDto> employeeDtos = invocation.getArgument(0);
+			employeeDtos.forEachRemaining(received::add);
+			return EmployeeBatchResult.builder().received(2).inserted(2).rows(Collections.emptyList()).build();
+		});
+
+		mockMvc.perform(post(BASE_URL + "/batch").contentType(EmployeeController.APPLICATION_SMILE_VALUE)
+				.content(new ObjectMapper(new SmileFactory())
+						.writeValueAsBytes(Arrays.asList(firstEmployeeDto, secondEmployeeDto))))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.inserted").value(2));
+
+		assertEquals(Arrays.asList(firstEmployeeDto, secondEmployeeDto), received);
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	@SuppressWarnings("unchecked")
+	void testSaveEmployees_JsonArray() throws Exception {
+		List<EmployeeDto> received = new ArrayList<>();
+		when(employeeService.saveEmployees(any(Iterator.class))).thenAnswer(invocation -> {
+			Iterator<EmployeeDto> employeeDtos = invocation.getArgument(0);
+			employeeDtos.forEachRemaining(received::add);
+			return EmployeeBatchResult.builder().received(1).inserted(1).rows(Collections.emptyList()).build();
+		});
+
+		mockMvc.perform(post(BASE_URL + "/batch").contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"name\":\"Trideb chapagai\",\"salary\":10,\"department\":\"Non-Life Insurance Dept\"}]"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.inserted").value(1));
+
+		assertEquals(1, received.size());
+		assertEquals("Trideb chapagai", received.get(0).getName());
+	}
+
 	@Test
 	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
 	void testDeleteEmployee() throws Exception {
@@ -143,6 +326,7 @@ class EmployeeControllerTest {
 	@Test
 	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
 	void testUpdateEmployee() throws Exception {
+		when(employeeService.updateEmployee(any(EmployeeDto.class), eq(1L))).thenReturn(firstEmployeeDto);
 
 		mockMvc.perform(put(BASE_URL + "/1").contentType(MediaType.APPLICATION_JSON)
 				.content("{\"name\": \"Updated Name\", \"salary\": 100, \"department\": \"Updated Department\"}"))
@@ -151,6 +335,66 @@ class EmployeeControllerTest {
 		verify(employeeService, times(1)).updateEmployee(any(EmployeeDto.class), eq(1L));
 	}
 
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testUpdateEmployee_WriteBehind() throws Exception {
+		when(employeeUpdateQueue.isEnabled()).thenReturn(true);
+		when(employeeUpdateQueue.enqueue(eq(1L), any(EmployeeDto.class))).thenReturn(new CompletableFuture<>());
+
+		mockMvc.perform(put(BASE_URL + "/1").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\": \"Updated Name\", \"salary\": 100, \"department\": \"Updated Department\"}"))
+				.andExpect(status().isAccepted());
+
+		verify(employeeUpdateQueue, times(1)).enqueue(eq(1L), any(EmployeeDto.class));
+		verify(employeeService, never()).updateEmployee(any(EmployeeDto.class), eq(1L));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testUpdateEmployee_WriteBehindUnknownEmployee() throws Exception {
+		when(employeeUpdateQueue.isEnabled()).thenReturn(true);
+		when(employeeService.getEmployee(1L))
+				.thenThrow(new RecordNotFoundException("Employee is not available for update, please check the input."));
+
+		mockMvc.perform(put(BASE_URL + "/1").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\": \"Updated Name\", \"salary\": 100, \"department\": \"Updated Department\"}"))
+				.andExpect(status().isNotFound());
+
+		verify(employeeUpdateQueue, never()).enqueue(eq(1L), any(EmployeeDto.class));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testUpdateEmployee_IfMatchDrainsQueuedUpdateFirst() throws Exception {
+		when(employeeUpdateQueue.isEnabled()).thenReturn(true);
+		when(employeeService.updateEmployee(any(EmployeeDto.class), eq(1L))).thenReturn(firstEmployeeDto);
+
+		mockMvc.perform(put(BASE_URL + "/1").header(HttpHeaders.IF_MATCH, "\"2\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\": \"Updated Name\", \"salary\": 100, \"department\": \"Updated Department\"}"))
+				.andExpect(status().isOk());
+
+		InOrder inOrder = inOrder(employeeUpdateQueue, employeeService);
+		inOrder.verify(employeeUpdateQueue).drain(1L);
+		inOrder.verify(employeeService).updateEmployee(any(EmployeeDto.class), eq(1L));
+		verify(employeeUpdateQueue, never()).enqueue(eq(1L), any(EmployeeDto.class));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testUpdateEmployee_WriteBehindCommittedAck() throws Exception {
+		CompletableFuture<EmployeeDto> committed = CompletableFuture
+				.completedFuture(EmployeeDto.builder().id(1L).version(5L).build());
+		when(employeeUpdateQueue.isEnabled()).thenReturn(true);
+		when(employeeUpdateQueue.enqueue(eq(1L), any(EmployeeDto.class))).thenReturn(committed);
+		when(employeeUpdateQueue.awaitCommit(committed)).thenReturn(committed.get());
+
+		mockMvc.perform(put(BASE_URL + "/1").header(EmployeeController.WRITE_ACK_HEADER, "committed")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\": \"Updated Name\", \"salary\": 100, \"department\": \"Updated Department\"}"))
+				.andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"5\""));
+	}
+
 	@Test
 	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
 	void testUpdateEmployee_RecordNotFoundException() throws Exception {
@@ -163,4 +407,153 @@ class EmployeeControllerTest {
 
 		verify(employeeService, times(1)).updateEmployee(any(EmployeeDto.class), eq(1L));
 	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testPatchEmployee() throws Exception {
+		when(employeeService.patchEmployee(any(EmployeeDto.class), eq(1L))).thenReturn(5L);
+
+		mockMvc.perform(patch(BASE_URL + "/1").contentType(MediaType.APPLICATION_JSON).content("{\"salary\": 100}"))
+				.andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"5\""));
+
+		verify(employeeService, times(1)).patchEmployee(eq(EmployeeDto.builder().salary(BigDecimal.valueOf(100)).build()),
+				eq(1L));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testPatchEmployee_RecordNotFoundException() throws Exception {
+		doThrow(new RecordNotFoundException("Employee is not available for update, please check the input."))
+				.when(employeeService).patchEmployee(any(EmployeeDto.class), eq(1L));
+
+		mockMvc.perform(patch(BASE_URL + "/1").contentType(MediaType.APPLICATION_JSON).content("{\"salary\": 100}"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployee_ETag() throws Exception {
+		firstEmployeeDto.setVersion(3L);
+		when(employeeService.getEmployee(1L)).thenReturn(firstEmployeeDto);
+
+		mockMvc.perform(get(BASE_URL + "/1")).andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployee_NotModified() throws Exception {
+		firstEmployeeDto.setVersion(3L);
+		when(employeeService.getEmployee(1L)).thenReturn(firstEmployeeDto);
+
+		mockMvc.perform(get(BASE_URL + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+				.andExpect(status().isNotModified()).andExpect(content().string(""));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testUpdateEmployee_IfMatch() throws Exception {
+		EmployeeDto updatedDto = EmployeeDto.builder().id(1L).version(4L).build();
+		when(employeeService.updateEmployee(any(EmployeeDto.class), eq(1L))).thenReturn(updatedDto);
+
+		mockMvc.perform(put(BASE_URL + "/1").header(HttpHeaders.IF_MATCH, "\"3\"").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\": \"Updated Name\", \"salary\": 100, \"department\": \"Updated Department\"}"))
+				.andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+
+		verify(employeeService, times(1)).updateEmployee(eq(EmployeeDto.builder().name("Updated Name")
+				.salary(BigDecimal.valueOf(100)).department("Updated Department").version(3L).build()), eq(1L));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testUpdateEmployee_PreconditionFailed() throws Exception {
+		when(employeeService.updateEmployee(any(EmployeeDto.class), eq(1L)))
+				.thenThrow(new ObjectOptimisticLockingFailureException(Employee.class, 1L));
+
+		mockMvc.perform(put(BASE_URL + "/1").header(HttpHeaders.IF_MATCH, "W/\"3\"").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\": \"Updated Name\", \"salary\": 100, \"department\": \"Updated Department\"}"))
+				.andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testUpdateEmployee_IfMatchList() throws Exception {
+		when(employeeService.updateEmployee(any(EmployeeDto.class), eq(1L)))
+				.thenReturn(EmployeeDto.builder().id(1L).version(4L).build());
+
+		mockMvc.perform(put(BASE_URL + "/1").header(HttpHeaders.IF_MATCH, "W/\"2\", \"3\", \"3\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\": \"Updated Name\", \"salary\": 100, \"department\": \"Updated Department\"}"))
+				.andExpect(status().isOk());
+		mockMvc.perform(put(BASE_URL + "/1").header(HttpHeaders.IF_MATCH, "\"3\", \"4\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\": \"Updated Name\", \"salary\": 100, \"department\": \"Updated Department\"}"))
+				.andExpect(status().isBadRequest());
+
+		verify(employeeService, times(1)).updateEmployee(eq(EmployeeDto.builder().name("Updated Name")
+				.salary(BigDecimal.valueOf(100)).department("Updated Department").version(3L).build()), eq(1L));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testDeleteEmployee_IfMatch() throws Exception {
+		mockMvc.perform(delete(BASE_URL + "/1").header(HttpHeaders.IF_MATCH, "\"3\"")).andExpect(status().isOk());
+
+		verify(employeeService, times(1)).deleteEmployee(1L, 3L);
+		verify(employeeService, never()).deleteEmployee(1L);
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testDeleteEmployees() throws Exception {
+		when(employeeService.deleteEmployees(Arrays.asList(1L, 2L, 3L))).thenReturn(2);
+
+		mockMvc.perform(delete(BASE_URL).param("ids", "1,2,3")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.requested").value(3)).andExpect(jsonPath("$.deleted").value(2));
+
+		verify(employeeService, times(1)).deleteEmployees(Arrays.asList(1L, 2L, 3L));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployeesByIds() throws Exception {
+		when(employeeService.getEmployees(Arrays.asList(2L, 1L)))
+				.thenReturn(Arrays.asList(secondEmployeeDto, firstEmployeeDto));
+
+		mockMvc.perform(get(BASE_URL).param("ids", "2,1")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id").value(2)).andExpect(jsonPath("$[1].id").value(1));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testLookupEmployees() throws Exception {
+		when(employeeService.getEmployees(Arrays.asList(1L, 3L))).thenReturn(Arrays.asList(firstEmployeeDto));
+
+		mockMvc.perform(post(BASE_URL + "/lookup").contentType(MediaType.APPLICATION_JSON).content("[1,3]"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(1));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployeeFields() throws Exception {
+		Map<String, Object> row = new LinkedHashMap<>();
+		row.put("id", 7L);
+		row.put("name", "Trideb Chapagai");
+		when(employeeService.retrieveEmployeeFields(Arrays.asList("name"), 5L, 1))
+				.thenReturn(Collections.singletonList(row));
+
+		mockMvc.perform(get(BASE_URL).param("fields", "name").param("after", "5").param("limit", "1"))
+				.andExpect(status().isOk()).andExpect(header().string(EmployeeController.NEXT_CURSOR_HEADER, "7"))
+				.andExpect(jsonPath("$[0].name").value("Trideb Chapagai"))
+				.andExpect(jsonPath("$[0].salary").doesNotExist());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testGetEmployeeFields_InvalidRequestException() throws Exception {
+		when(employeeService.retrieveEmployeeFields(Arrays.asList("password"), null, null))
+				.thenThrow(new InvalidRequestException("Unknown employee fields [password]"));
+
+		mockMvc.perform(get(BASE_URL).param("fields", "password")).andExpect(status().isBadRequest());
+	}
 }
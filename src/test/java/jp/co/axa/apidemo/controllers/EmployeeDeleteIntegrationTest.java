@@ -0,0 +1,65 @@
+package jp.co.axa.apidemo.controllers;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jp.co.axa.apidemo.index.SalaryIndex;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.services.EmployeeService;
+
+/**
+ * Deletes employees through the whole stack, with the real database, change
+ * log and salary index.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class EmployeeDeleteIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private SalaryIndex salaryIndex;
+
+	private static final String BASE_URL = "/api/v1/employees";
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testDeleteEmployees_MissingIdStaysFreeForTheNextEmployee() throws Exception {
+		String department = "Bulk Delete";
+		Long existingId = employeeService.saveEmployee(EmployeeDto.builder().name("Trideb Chapagai")
+				.salary(BigDecimal.valueOf(5000)).department(department).build()).getId();
+		Long nextId = existingId + 1;
+
+		mockMvc.perform(delete(BASE_URL).param("ids", existingId + "," + nextId)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.deleted", is(1)));
+
+		Long createdId = employeeService.saveEmployee(EmployeeDto.builder().name("Next Employee")
+				.salary(BigDecimal.valueOf(6000)).department(department).build()).getId();
+		assertEquals(nextId, createdId);
+		// the index follows the change log asynchronously
+		long deadline = System.currentTimeMillis() + 5000;
+		while (salaryIndex.count(department) != 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, salaryIndex.count(department));
+	}
+}
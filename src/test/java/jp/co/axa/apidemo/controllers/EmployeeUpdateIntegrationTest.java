@@ -0,0 +1,111 @@
+package jp.co.axa.apidemo.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jp.co.axa.apidemo.cache.CacheConfig;
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+
+/**
+ * Updates an employee through the whole stack, with the real transactions,
+ * cache and database.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class EmployeeUpdateIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private static final String BASE_URL = "/api/v1/employees/";
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testUpdateEmployee_ReturnsStoredVersion() throws Exception {
+		Long employeeId = employeeRepository.save(Employee.builder().name("Trideb Chapagai")
+				.salary(BigDecimal.valueOf(5000)).department("Finance").build()).getId();
+
+		mockMvc.perform(put(BASE_URL + employeeId).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Trideb Chapagai\",\"salary\":6000,\"department\":\"Finance\"}"))
+				.andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+		assertEquals(Long.valueOf(1), employeeRepository.findById(employeeId).get().getVersion());
+		EmployeeDto cached = cacheManager.getCache(CacheConfig.EMPLOYEE).get(employeeId, EmployeeDto.class);
+		assertEquals(Long.valueOf(1), cached.getVersion());
+
+		// the returned ETag is the one to send back
+		mockMvc.perform(put(BASE_URL + employeeId).header(HttpHeaders.IF_MATCH, "\"1\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Trideb Chapagai\",\"salary\":7000,\"department\":\"Finance\"}"))
+				.andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+
+		// a stale ETag is refused and leaves the employee alone
+		mockMvc.perform(put(BASE_URL + employeeId).header(HttpHeaders.IF_MATCH, "\"1\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Trideb Chapagai\",\"salary\":8000,\"department\":\"Finance\"}"))
+				.andExpect(status().isPreconditionFailed());
+		assertEquals(Long.valueOf(2), employeeRepository.findById(employeeId).get().getVersion());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testPatchEmployee_OneStatement() throws Exception {
+		Long employeeId = employeeRepository.save(Employee.builder().name("Trideb Chapagai")
+				.salary(BigDecimal.valueOf(5000)).department("Finance").build()).getId();
+		// caches the employee and its version
+		mockMvc.perform(get(BASE_URL + employeeId)).andExpect(status().isOk());
+		double statementsBefore = patchStatements().totalAmount();
+		long patchesBefore = patchStatements().count();
+
+		mockMvc.perform(patch(BASE_URL + employeeId).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"salary\":600}")).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+		// the conditional update alone gives the new version
+		assertEquals(1, patchStatements().count() - patchesBefore);
+		assertEquals(1.0, patchStatements().totalAmount() - statementsBefore);
+		mockMvc.perform(patch(BASE_URL + employeeId).header(HttpHeaders.IF_MATCH, "\"0\"")
+				.contentType(MediaType.APPLICATION_JSON).content("{\"salary\":700}"))
+				.andExpect(status().isPreconditionFailed());
+		Employee stored = employeeRepository.findById(employeeId).get();
+		assertEquals(0, BigDecimal.valueOf(600).compareTo(stored.getSalary()));
+		assertEquals(Long.valueOf(1), stored.getVersion());
+	}
+
+	private DistributionSummary patchStatements() {
+		return meterRegistry.summary("http.server.requests.statements", "method", "PATCH", "uri",
+				"/api/v1/employees/{employeeId}", "status", "200");
+	}
+}
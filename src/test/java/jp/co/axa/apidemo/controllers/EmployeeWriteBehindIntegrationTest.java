@@ -0,0 +1,78 @@
+package jp.co.axa.apidemo.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+
+/**
+ * Mixes write-behind updates with synchronous writes of the same employee,
+ * with the real queue, transactions and database. Queued updates are only
+ * flushed after a minute, unless a synchronous write drains them.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = { "employee.write-behind.enabled=true", "employee.write-behind.max-delay=1m" })
+@AutoConfigureMockMvc
+class EmployeeWriteBehindIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	private static final String BASE_URL = "/api/v1/employees/";
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testUpdateEmployee_QueuedThenIfMatch() throws Exception {
+		Long employeeId = employeeRepository.save(Employee.builder().name("Trideb Chapagai")
+				.salary(BigDecimal.valueOf(5000)).department("Finance").build()).getId();
+
+		mockMvc.perform(put(BASE_URL + employeeId).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Queued\",\"salary\":6000,\"department\":\"Finance\"}"))
+				.andExpect(status().isAccepted());
+		// the queued update is committed first, so the version read before it is stale
+		mockMvc.perform(put(BASE_URL + employeeId).header(HttpHeaders.IF_MATCH, "\"0\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Stale\",\"salary\":7000,\"department\":\"Finance\"}"))
+				.andExpect(status().isPreconditionFailed());
+		assertEquals("Queued", employeeRepository.findById(employeeId).get().getName());
+
+		mockMvc.perform(put(BASE_URL + employeeId).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Queued again\",\"salary\":6500,\"department\":\"Finance\"}"))
+				.andExpect(status().isAccepted());
+		mockMvc.perform(put(BASE_URL + employeeId).header(HttpHeaders.IF_MATCH, "\"2\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Latest\",\"salary\":8000,\"department\":\"Finance\"}"))
+				.andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+
+		Employee stored = employeeRepository.findById(employeeId).get();
+		assertEquals("Latest", stored.getName());
+		assertEquals(Long.valueOf(3), stored.getVersion());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testUpdateEmployee_UnknownEmployeeIsNotQueued() throws Exception {
+		mockMvc.perform(put(BASE_URL + Long.MAX_VALUE).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Nobody\",\"salary\":6000,\"department\":\"Finance\"}"))
+				.andExpect(status().isNotFound());
+	}
+}
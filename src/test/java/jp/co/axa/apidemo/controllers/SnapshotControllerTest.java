@@ -0,0 +1,59 @@
+package jp.co.axa.apidemo.controllers;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jp.co.axa.apidemo.exception.InvalidRequestException;
+import jp.co.axa.apidemo.model.EmployeeSnapshotResult;
+import jp.co.axa.apidemo.snapshot.EmployeeSnapshotService;
+
+@WebMvcTest(SnapshotController.class)
+class SnapshotControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private EmployeeSnapshotService employeeSnapshotService;
+
+	private static final String BASE_URL = "/api/v1/admin/snapshots";
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "ADMIN")
+	void testExportSnapshot() throws Exception {
+		when(employeeSnapshotService.exportSnapshot()).thenReturn(EmployeeSnapshotResult.builder()
+				.name("employees-20240101-000000-000.snapshot").employees(2).bytes(120).build());
+
+		mockMvc.perform(post(BASE_URL)).andExpect(status().isCreated())
+				.andExpect(jsonPath("$.name").value("employees-20240101-000000-000.snapshot"))
+				.andExpect(jsonPath("$.employees").value(2));
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "ADMIN")
+	void testRestoreSnapshot_InvalidSnapshot() throws Exception {
+		when(employeeSnapshotService.restoreSnapshot("employees.snapshot"))
+				.thenThrow(new InvalidRequestException("Snapshot employees.snapshot is not a valid employee snapshot"));
+
+		mockMvc.perform(post(BASE_URL + "/employees.snapshot/restore")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@WithMockUser(username = "ajx", password = "ajx", roles = "USER")
+	void testExportSnapshot_Forbidden() throws Exception {
+		mockMvc.perform(post(BASE_URL)).andExpect(status().isForbidden());
+
+		verify(employeeSnapshotService, never()).exportSnapshot();
+	}
+}
@@ -0,0 +1,110 @@
+package jp.co.axa.apidemo.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class ReadWriteRoutingDataSourceTest {
+
+	private final ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(mock(DataSource.class),
+			mock(DataSource.class), new ReadYourWritesWindow(Duration.ofMinutes(1)));
+
+	@AfterEach
+	void clear() {
+		SecurityContextHolder.clearContext();
+		RequestContextHolder.resetRequestAttributes();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void testDetermineCurrentLookupKey_ReadOnlyToReplica() {
+		assertEquals(ReadWriteRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, dataSource.determineCurrentLookupKey());
+	}
+
+	@Test
+	void testDetermineCurrentLookupKey_ReadsOwnWritesFromPrimary() {
+		authenticate("axa");
+		TransactionSynchronizationManager.initSynchronization();
+		assertEquals(ReadWriteRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, dataSource.determineCurrentLookupKey(),
+				"not pinned before the write is committed");
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+		assertEquals(ReadWriteRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+
+		authenticate("other");
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, dataSource.determineCurrentLookupKey());
+	}
+
+	@Test
+	void testDetermineCurrentLookupKey_RolledBackWriteNotPinned() {
+		authenticate("axa");
+		TransactionSynchronizationManager.initSynchronization();
+		dataSource.determineCurrentLookupKey();
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, dataSource.determineCurrentLookupKey());
+	}
+
+	@Test
+	void testDetermineCurrentLookupKey_PinsClientByRemoteAddress() {
+		authenticate("axa");
+		request("10.0.0.1");
+		TransactionSynchronizationManager.initSynchronization();
+		dataSource.determineCurrentLookupKey();
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertEquals(ReadWriteRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+		request("10.0.0.2");
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, dataSource.determineCurrentLookupKey(),
+				"same user from another address");
+	}
+
+	@Test
+	void testReadFromPrimary() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertEquals(ReadWriteRoutingDataSource.PRIMARY,
+				ReadWriteRoutingDataSource.readFromPrimary(dataSource::determineCurrentLookupKey));
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, dataSource.determineCurrentLookupKey());
+	}
+
+	private static void request(String remoteAddress) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRemoteAddr(remoteAddress);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	private static void complete(int status) {
+		TransactionSynchronizationManager.getSynchronizations()
+				.forEach(synchronization -> synchronization.afterCompletion(status));
+	}
+
+	private static void authenticate(String user) {
+		TestingAuthenticationToken authentication = new TestingAuthenticationToken(user, user);
+		authentication.setAuthenticated(true);
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+	}
+}
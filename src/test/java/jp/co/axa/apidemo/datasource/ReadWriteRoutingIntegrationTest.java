@@ -0,0 +1,125 @@
+package jp.co.axa.apidemo.datasource;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+/**
+ * Routes the requests through the real data sources, with a primary and a
+ * replica that are two in-memory databases holding different employees, so
+ * the returned employees tell which database served each read.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+		"employee.datasource.replica.jdbc-url=" + ReadWriteRoutingIntegrationTest.REPLICA_URL
+				+ ";INIT=CREATE TABLE IF NOT EXISTS EMPLOYEE(ID BIGINT AUTO_INCREMENT PRIMARY KEY, "
+				+ "DEPARTMENT VARCHAR(255), EMPLOYEE_NAME VARCHAR(255), EMPLOYEE_SALARY DECIMAL(19, 2), "
+				+ "VERSION BIGINT)",
+		"employee.datasource.replica.username=sa", "employee.datasource.replica.password=",
+		"employee.datasource.read-your-writes-window=1m" })
+@AutoConfigureMockMvc
+class ReadWriteRoutingIntegrationTest {
+
+	static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary";
+
+	static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+	private static final String DEPARTMENT = "Routing";
+
+	private static final String SEARCH_URL = "/api/v1/employees/search";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	public void setup() throws SQLException {
+		for (String url : new String[] { PRIMARY_URL, REPLICA_URL }) {
+			execute(url, "DELETE FROM EMPLOYEE WHERE DEPARTMENT = ?", DEPARTMENT);
+		}
+		execute(PRIMARY_URL, "INSERT INTO EMPLOYEE (EMPLOYEE_NAME, EMPLOYEE_SALARY, DEPARTMENT, VERSION) "
+				+ "VALUES ('On Primary', 5000, ?, 0)", DEPARTMENT);
+		execute(REPLICA_URL, "INSERT INTO EMPLOYEE (EMPLOYEE_NAME, EMPLOYEE_SALARY, DEPARTMENT, VERSION) "
+				+ "VALUES ('On Replica', 5000, ?, 0)", DEPARTMENT);
+	}
+
+	@Test
+	void testReadOnlyTransactionReadsFromReplica() throws Exception {
+		mockMvc.perform(get(SEARCH_URL).param("department", DEPARTMENT).with(client("reader")))
+				.andExpect(status().isOk()).andExpect(jsonPath("$[*].name", contains("On Replica")));
+	}
+
+	@Test
+	void testWriteGoesToPrimary() throws Exception {
+		mockMvc.perform(post("/api/v1/employees").with(client("writer")).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Written\",\"salary\":600,\"department\":\"" + DEPARTMENT + "\"}"))
+				.andExpect(status().isCreated());
+
+		assertEquals(Arrays.asList("On Primary", "Written"), names(PRIMARY_URL));
+		assertEquals(Collections.singletonList("On Replica"), names(REPLICA_URL));
+	}
+
+	@Test
+	void testReadAfterWriteReadsFromPrimary() throws Exception {
+		mockMvc.perform(post("/api/v1/employees").with(client("writer")).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Written\",\"salary\":600,\"department\":\"" + DEPARTMENT + "\"}"))
+				.andExpect(status().isCreated());
+
+		// within the read-your-writes window of the writing client only
+		mockMvc.perform(get(SEARCH_URL).param("department", DEPARTMENT).with(client("writer")))
+				.andExpect(status().isOk()).andExpect(jsonPath("$[*].name", contains("On Primary", "Written")));
+		mockMvc.perform(get(SEARCH_URL).param("department", DEPARTMENT).with(client("reader")))
+				.andExpect(status().isOk()).andExpect(jsonPath("$[*].name", contains("On Replica")));
+	}
+
+	private static RequestPostProcessor client(String username) {
+		return user(username).roles("USER");
+	}
+
+	private static void execute(String url, String sql, String department) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setString(1, department);
+			statement.executeUpdate();
+		}
+	}
+
+	private static List<String> names(String url) throws SQLException {
+		List<String> names = new ArrayList<>();
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				PreparedStatement statement = connection
+						.prepareStatement("SELECT EMPLOYEE_NAME FROM EMPLOYEE WHERE DEPARTMENT = ? ORDER BY ID")) {
+			statement.setString(1, DEPARTMENT);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					names.add(resultSet.getString(1));
+				}
+			}
+		}
+		return names;
+	}
+}
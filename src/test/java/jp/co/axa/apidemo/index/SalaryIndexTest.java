@@ -0,0 +1,190 @@
+package jp.co.axa.apidemo.index;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jp.co.axa.apidemo.changes.EmployeeChangeLog;
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.model.EmployeeChange;
+import jp.co.axa.apidemo.model.EmployeeChange.ChangeType;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+
+class SalaryIndexTest {
+
+	@Mock
+	private EmployeeRepository employeeRepository;
+
+	@Mock
+	private EmployeeChangeLog employeeChangeLog;
+
+	@InjectMocks
+	private SalaryIndex salaryIndex;
+
+	@BeforeEach
+	public void setup() {
+		MockitoAnnotations.initMocks(this);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void testRun_LoadsAndAppliesChangesReceivedMeanwhile() {
+		doAnswer(invocation -> {
+			Consumer<Employee> consumer = invocation.getArgument(0);
+			for (long id = 1; id <= 10; id++) {
+				consumer.accept(employee(id, "IT", id * 100));
+			}
+			consumer.accept(employee(11L, null, 500));
+			consumer.accept(employee(12L, "IT", null));
+			// committed and logged during the scan
+			salaryIndex.onChange(change(ChangeType.DELETED, 10L, null));
+			return null;
+		}).when(employeeRepository).scanEmployees(any(Consumer.class));
+		assertFalse(salaryIndex.isReady());
+
+		salaryIndex.run(null);
+
+		verify(employeeChangeLog).subscribe(salaryIndex);
+		assertTrue(salaryIndex.isReady());
+		assertEquals(9, salaryIndex.count("IT"));
+		assertArrayEquals(new long[] { 10000, 50000, 90000 },
+				salaryIndex.percentiles("IT", new double[] { 0, 50, 100 }));
+		assertNull(salaryIndex.percentiles("Finance", new double[] { 50 }));
+		assertEquals(3, salaryIndex.countBetween("IT", 20000, 50000));
+		assertEquals(9, salaryIndex.countBetween("IT", Long.MIN_VALUE, Long.MAX_VALUE));
+	}
+
+	@Test
+	void testOnChange_KeepsIndexCurrent() {
+		salaryIndex.run(null);
+
+		salaryIndex.onChange(change(ChangeType.CREATED, 1L, dto("IT", "100.50")));
+		salaryIndex.onChange(change(ChangeType.CREATED, 2L, dto("IT", "200")));
+		salaryIndex.onChange(change(ChangeType.UPDATED, 1L, dto("Finance", "300")));
+		// a patch keeps the department it does not carry
+		salaryIndex.onChange(change(ChangeType.PATCHED, 2L, dto(null, "-50")));
+
+		assertArrayEquals(new long[] { -5000 }, salaryIndex.percentiles("IT", new double[] { 50 }));
+		assertArrayEquals(new long[] { 30000 }, salaryIndex.percentiles("Finance", new double[] { 99 }));
+
+		salaryIndex.onChange(change(ChangeType.DELETED, 2L, null));
+
+		assertEquals(0, salaryIndex.count("IT"));
+		assertEquals(1, salaryIndex.count("Finance"));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void testOnChange_IgnoresChangesOlderThanIndexed() {
+		doAnswer(invocation -> {
+			Consumer<Employee> consumer = invocation.getArgument(0);
+			consumer.accept(Employee.builder().id(1L).department("IT").salary(BigDecimal.valueOf(100)).version(2L)
+					.build());
+			// committed before the scan read the employee, then logged
+			salaryIndex.onChange(change(ChangeType.UPDATED, 1L, dto("IT", "50", 2L)));
+			return null;
+		}).when(employeeRepository).scanEmployees(any(Consumer.class));
+		salaryIndex.run(null);
+
+		salaryIndex.onChange(change(ChangeType.UPDATED, 1L, dto("IT", "70", 1L)));
+		assertArrayEquals(new long[] { 10000 }, salaryIndex.percentiles("IT", new double[] { 50 }));
+
+		salaryIndex.onChange(change(ChangeType.PATCHED, 1L, dto(null, "300", 3L)));
+		assertArrayEquals(new long[] { 30000 }, salaryIndex.percentiles("IT", new double[] { 50 }));
+
+		salaryIndex.onChange(change(ChangeType.DELETED, 1L, null));
+		salaryIndex.onChange(change(ChangeType.UPDATED, 1L, dto("IT", "400", 4L)));
+		assertEquals(0, salaryIndex.count("IT"));
+	}
+
+	@Test
+	void testOnChange_DropsTombstonesOnceOldEnough() {
+		ReflectionTestUtils.setField(salaryIndex, "tombstoneSequences", 2L);
+		salaryIndex.run(null);
+		salaryIndex.onChange(change(1, ChangeType.CREATED, 1L, dto("IT", "100", 0L)));
+		salaryIndex.onChange(change(2, ChangeType.DELETED, 1L, null));
+
+		// a late change of the deleted employee is still ignored
+		salaryIndex.onChange(change(3, ChangeType.UPDATED, 1L, dto("IT", "200", 1L)));
+		assertEquals(0, salaryIndex.count("IT"));
+		salaryIndex.onChange(change(5, ChangeType.CREATED, 2L, dto("IT", "300", 0L)));
+
+		LongLongHashMap versions = (LongLongHashMap) ReflectionTestUtils.getField(salaryIndex, "versions");
+		assertEquals(LongLongHashMap.NO_VALUE, versions.get(1L));
+		assertEquals(1, salaryIndex.count("IT"));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void testOnReset_ReloadsInBackground() throws InterruptedException {
+		salaryIndex.run(null);
+		doAnswer(invocation -> {
+			invocation.<Consumer<Employee>>getArgument(0).accept(employee(1L, "IT", 100));
+			return null;
+		}).when(employeeRepository).scanEmployees(any(Consumer.class));
+
+		salaryIndex.onReset(5L);
+		salaryIndex.onChange(change(ChangeType.CREATED, 2L, dto("IT", "200", 0L)));
+		for (int attempt = 0; attempt < 100 && !salaryIndex.isReady(); attempt++) {
+			Thread.sleep(10);
+		}
+
+		assertTrue(salaryIndex.isReady());
+		assertEquals(2, salaryIndex.count("IT"));
+		salaryIndex.shutdown();
+	}
+
+	@Test
+	void testLongLongHashMap_RemoveKeepsCollidingKeys() {
+		LongLongHashMap map = new LongLongHashMap(4);
+		for (long key = 0; key < 1000; key++) {
+			map.put(key, key * 2);
+		}
+		for (long key = 0; key < 1000; key += 3) {
+			assertEquals(key * 2, map.remove(key));
+		}
+
+		assertEquals(666, map.size());
+		for (long key = 0; key < 1000; key++) {
+			assertEquals(key % 3 == 0 ? LongLongHashMap.NO_VALUE : key * 2, map.get(key));
+		}
+	}
+
+	private static Employee employee(Long id, String department, Number salary) {
+		return Employee.builder().id(id).department(department)
+				.salary(salary == null ? null : new BigDecimal(salary.toString())).build();
+	}
+
+	private static EmployeeDto dto(String department, String salary) {
+		return dto(department, salary, null);
+	}
+
+	private static EmployeeDto dto(String department, String salary, Long version) {
+		return EmployeeDto.builder().department(department).salary(new BigDecimal(salary)).version(version).build();
+	}
+
+	private static EmployeeChange change(ChangeType type, Long employeeId, EmployeeDto employee) {
+		return change(0, type, employeeId, employee);
+	}
+
+	private static EmployeeChange change(long sequence, ChangeType type, Long employeeId, EmployeeDto employee) {
+		return new EmployeeChange(sequence, type, employeeId, employee == null ? null : employee.getVersion(),
+				employee, 0);
+	}
+}
@@ -0,0 +1,65 @@
+package jp.co.axa.apidemo.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Test
+	void testTryAcquire_ShedsOverLimit() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read", 2, 1, 10, Duration.ofMillis(50));
+
+		assertTrue(limiter.tryAcquire());
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+		assertEquals(2, limiter.getInFlight());
+		assertEquals(1, limiter.getShedCount());
+
+		limiter.release(FAST, false);
+		assertTrue(limiter.tryAcquire());
+	}
+
+	@Test
+	void testRelease_AdjustsLimitFromLatency() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read", 4, 1, 5, Duration.ofMillis(50));
+
+		for (int i = 0; i < 4; i++) {
+			limiter.tryAcquire();
+		}
+		limiter.release(FAST, false);
+		assertEquals(5, limiter.getLimit());
+		limiter.release(FAST, false);
+		assertEquals(5, limiter.getLimit(), "capped at the maximum");
+
+		limiter.release(SLOW, false);
+		assertEquals(4, limiter.getLimit());
+		limiter.release(FAST, true);
+		assertEquals(4, limiter.getLimit(), "a failure backs off as well");
+		for (int i = 0; i < 50; i++) {
+			limiter.tryAcquire();
+			limiter.release(SLOW, false);
+		}
+		assertEquals(1, limiter.getLimit(), "floored at the minimum");
+	}
+
+	@Test
+	void testRelease_IdleLimitDoesNotGrow() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("write", 10, 1, 50, Duration.ofMillis(50));
+
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire();
+			limiter.release(FAST, false);
+		}
+		assertEquals(10, limiter.getLimit());
+	}
+}
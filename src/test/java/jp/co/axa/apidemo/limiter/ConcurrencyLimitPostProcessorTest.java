@@ -0,0 +1,68 @@
+package jp.co.axa.apidemo.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jp.co.axa.apidemo.cache.CacheConfig;
+import jp.co.axa.apidemo.exception.ServiceOverloadedException;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.services.EmployeeService;
+
+class ConcurrencyLimitPostProcessorTest {
+
+	private final EmployeeService target = mock(EmployeeService.class);
+
+	private CaffeineCacheManager cacheManager;
+
+	private ConcurrencyLimitPostProcessor postProcessor;
+
+	private EmployeeService employeeService;
+
+	@SuppressWarnings("unchecked")
+	@BeforeEach
+	public void setup() {
+		cacheManager = new CaffeineCacheManager();
+		cacheManager.setCaffeine(Caffeine.newBuilder().recordStats());
+		cacheManager.setCacheNames(Arrays.asList(CacheConfig.EMPLOYEE, CacheConfig.MISSING_EMPLOYEE));
+		ObjectProvider<CacheManager> cacheManagerProvider = mock(ObjectProvider.class);
+		when(cacheManagerProvider.getIfAvailable()).thenReturn(cacheManager);
+		postProcessor = new ConcurrencyLimitPostProcessor(
+				new MockEnvironment().withProperty("employee.limiter.read.initial-limit", "1"), cacheManagerProvider);
+		employeeService = (EmployeeService) postProcessor
+				.postProcessAfterInitialization(new ProxyFactory(target).getProxy(), "employeeService");
+	}
+
+	@Test
+	void testGetEmployee_CachedSkipsLimiter() {
+		EmployeeDto cachedDto = EmployeeDto.builder().id(1L).build();
+		cacheManager.getCache(CacheConfig.EMPLOYEE).put(1L, cachedDto);
+		when(target.getEmployee(1L)).thenReturn(cachedDto);
+		AdaptiveConcurrencyLimiter readLimiter = postProcessor.getLimiters().get(0);
+		assertTrue(readLimiter.tryAcquire());
+
+		assertSame(cachedDto, employeeService.getEmployee(1L));
+		assertThrows(ServiceOverloadedException.class, () -> employeeService.getEmployee(2L));
+
+		assertEquals(1, readLimiter.getShedCount());
+		// the limiter lookups are not counted as cache hits or misses
+		Cache<?, ?> nativeCache = (Cache<?, ?>) cacheManager.getCache(CacheConfig.EMPLOYEE).getNativeCache();
+		assertEquals(0, nativeCache.stats().requestCount());
+	}
+}
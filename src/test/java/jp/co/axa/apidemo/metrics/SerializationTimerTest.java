@@ -0,0 +1,76 @@
+package jp.co.axa.apidemo.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jp.co.axa.apidemo.model.EmployeeDto;
+
+class SerializationTimerTest {
+
+	private MeterRegistry registry;
+
+	private ObjectProvider<MeterRegistry> meterRegistry;
+
+	private EmployeeDto employeeDto;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		registry = new SimpleMeterRegistry();
+		meterRegistry = mock(ObjectProvider.class);
+		when(meterRegistry.getIfAvailable()).thenReturn(registry);
+		employeeDto = EmployeeDto.builder().id(1L).name("Trideb Chapagai").department("Non-Life Insurance")
+				.salary(BigDecimal.TEN).version(0L).build();
+	}
+
+	@Test
+	void testEveryFormatTimed() throws Exception {
+		write(new TimedMappingJackson2HttpMessageConverter(new ObjectMapper(), meterRegistry),
+				MediaType.APPLICATION_JSON);
+		write(new TimedMappingJackson2CborHttpMessageConverter(new ObjectMapper(new CBORFactory()), meterRegistry),
+				MediaType.valueOf("application/cbor"));
+		write(new TimedMappingJackson2SmileHttpMessageConverter(new ObjectMapper(new SmileFactory()), meterRegistry),
+				MediaType.valueOf("application/x-jackson-smile"));
+
+		for (String format : new String[] { "json", "cbor", "smile" }) {
+			assertEquals(1, registry.get(SerializationTimer.METRIC_NAME)
+					.tags("type", "EmployeeDto", "format", format).timer().count());
+		}
+	}
+
+	@Test
+	void testWrittenWithoutRegistry() throws Exception {
+		when(meterRegistry.getIfAvailable()).thenReturn(null);
+		MockHttpOutputMessage outputMessage = write(
+				new TimedMappingJackson2CborHttpMessageConverter(new ObjectMapper(new CBORFactory()), meterRegistry),
+				MediaType.valueOf("application/cbor"));
+
+		assertEquals("Trideb Chapagai",
+				new ObjectMapper(new CBORFactory()).readTree(outputMessage.getBodyAsBytes()).get("name").asText());
+		assertNull(registry.find(SerializationTimer.METRIC_NAME).timer());
+	}
+
+	private MockHttpOutputMessage write(HttpMessageConverter<Object> converter, MediaType mediaType)
+			throws Exception {
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		converter.write(employeeDto, mediaType, outputMessage);
+		return outputMessage;
+	}
+}
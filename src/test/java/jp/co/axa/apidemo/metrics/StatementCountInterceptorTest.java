@@ -0,0 +1,64 @@
+package jp.co.axa.apidemo.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import javax.servlet.DispatcherType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StatementCountInterceptorTest {
+
+	private MeterRegistry registry;
+
+	private StatementCountInterceptor interceptor;
+
+	private MockHttpServletRequest request;
+
+	private MockHttpServletResponse response;
+
+	@BeforeEach
+	public void setup() {
+		registry = new SimpleMeterRegistry();
+		interceptor = new StatementCountInterceptor(registry);
+		request = new MockHttpServletRequest("GET", "/api/v1/employees/1");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/employees/{employeeId}");
+		response = new MockHttpServletResponse();
+	}
+
+	@Test
+	void testStatementsRecordedPerRequest() {
+		StatementCountInspector inspector = new StatementCountInspector();
+		inspector.inspect("select 1");
+
+		interceptor.preHandle(request, response, null);
+		inspector.inspect("select 1");
+		inspector.inspect("select 2");
+		interceptor.afterCompletion(request, response, null, null);
+		inspector.inspect("select 3");
+
+		DistributionSummary summary = registry.get(StatementCountInterceptor.METRIC_NAME)
+				.tags("method", "GET", "uri", "/api/v1/employees/{employeeId}", "status", "200").summary();
+		assertEquals(1, summary.count());
+		assertEquals(2.0, summary.totalAmount());
+		assertEquals(0, StatementCountInspector.stop());
+	}
+
+	@Test
+	void testAsyncDispatchNotRecorded() {
+		request.setDispatcherType(DispatcherType.ASYNC);
+
+		interceptor.preHandle(request, response, null);
+		interceptor.afterCompletion(request, response, null, null);
+
+		assertNull(registry.find(StatementCountInterceptor.METRIC_NAME).summary());
+	}
+}
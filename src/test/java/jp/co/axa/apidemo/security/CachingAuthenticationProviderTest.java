@@ -0,0 +1,60 @@
+package jp.co.axa.apidemo.security;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+class CachingAuthenticationProviderTest {
+
+	private AuthenticationProvider delegate;
+
+	private CachingAuthenticationProvider provider;
+
+	private Authentication authenticated;
+
+	@BeforeEach
+	public void setup() {
+		delegate = mock(AuthenticationProvider.class);
+		provider = new CachingAuthenticationProvider(delegate, "maximumSize=10,expireAfterWrite=60s");
+		authenticated = new UsernamePasswordAuthenticationToken("axa", null,
+				Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+	}
+
+	@Test
+	void testAuthenticate_CachedAfterSuccess() {
+		when(delegate.authenticate(any())).thenReturn(authenticated);
+
+		assertSame(authenticated, provider.authenticate(new UsernamePasswordAuthenticationToken("axa", "axa")));
+		assertSame(authenticated, provider.authenticate(new UsernamePasswordAuthenticationToken("axa", "axa")));
+
+		verify(delegate, times(1)).authenticate(any());
+	}
+
+	@Test
+	void testAuthenticate_OtherPasswordChecked() {
+		when(delegate.authenticate(any())).thenReturn(authenticated)
+				.thenThrow(new BadCredentialsException("Bad credentials"));
+
+		provider.authenticate(new UsernamePasswordAuthenticationToken("axa", "axa"));
+
+		assertThrows(BadCredentialsException.class,
+				() -> provider.authenticate(new UsernamePasswordAuthenticationToken("axa", "wrong")));
+		assertThrows(BadCredentialsException.class,
+				() -> provider.authenticate(new UsernamePasswordAuthenticationToken("axa", "wrong")));
+		verify(delegate, times(3)).authenticate(any());
+	}
+}
@@ -0,0 +1,135 @@
+package jp.co.axa.apidemo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.MessageSource;
+
+import jp.co.axa.apidemo.exception.InvalidRequestException;
+import jp.co.axa.apidemo.exception.RecordNotFoundException;
+import jp.co.axa.apidemo.exception.ServiceOverloadedException;
+import jp.co.axa.apidemo.index.SalaryIndex;
+import jp.co.axa.apidemo.model.DepartmentStatsDto;
+import jp.co.axa.apidemo.model.SalaryPercentilesDto;
+import jp.co.axa.apidemo.model.SalaryRangeDto;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+
+@SpringBootTest
+class DepartmentServiceTest {
+
+	@Mock
+	private EmployeeRepository employeeRepository;
+
+	@Mock
+	private SalaryIndex salaryIndex;
+
+	@Mock
+	private MessageSource messageSource;
+
+	@InjectMocks
+	private DepartmentServiceImpl departmentService;
+
+	private DepartmentStatsDto financeStats;
+
+	@BeforeEach
+	public void setup() {
+		MockitoAnnotations.initMocks(this);
+
+		financeStats = new DepartmentStatsDto("Finance", 3L, BigDecimal.valueOf(1000), 333.3333d,
+				BigDecimal.valueOf(100), BigDecimal.valueOf(500));
+	}
+
+	@Test
+	void testRetrieveDepartmentStats() {
+		when(employeeRepository.findDepartmentStats()).thenReturn(Arrays.asList(financeStats));
+
+		List<DepartmentStatsDto> departmentStats = departmentService.retrieveDepartmentStats();
+
+		assertEquals(1, departmentStats.size());
+		assertEquals(new BigDecimal("333.33"), departmentStats.get(0).getAverageSalary());
+		verify(employeeRepository, times(1)).findDepartmentStats();
+	}
+
+	@Test
+	void testGetDepartmentStats() {
+		when(employeeRepository.findDepartmentStats("Finance")).thenReturn(Optional.of(financeStats));
+
+		DepartmentStatsDto departmentStats = departmentService.getDepartmentStats("Finance");
+
+		assertEquals(3L, departmentStats.getCount());
+		assertEquals(BigDecimal.valueOf(1000), departmentStats.getTotalSalary());
+	}
+
+	@Test
+	void testGetDepartmentStats_RecordNotFoundException() {
+		when(employeeRepository.findDepartmentStats("Unknown")).thenReturn(Optional.empty());
+		when(messageSource.getMessage(eq("error.department.notfound"), isNull(), eq(Locale.ENGLISH)))
+				.thenReturn("Department has no employee");
+
+		assertThrows(RecordNotFoundException.class, () -> departmentService.getDepartmentStats("Unknown"));
+	}
+
+	@Test
+	void testGetSalaryPercentiles() {
+		when(salaryIndex.isReady()).thenReturn(true);
+		when(salaryIndex.count("Finance")).thenReturn(3);
+		when(salaryIndex.percentiles(eq("Finance"), any(double[].class))).thenReturn(new long[] { 20000, 50050 });
+
+		SalaryPercentilesDto salaryPercentiles = departmentService.getSalaryPercentiles("Finance",
+				Arrays.asList(50d, 99.9d));
+
+		assertEquals(3, salaryPercentiles.getEmployees());
+		assertEquals(new BigDecimal("200.00"), salaryPercentiles.getPercentiles().get("50"));
+		assertEquals(new BigDecimal("500.50"), salaryPercentiles.getPercentiles().get("99.9"));
+	}
+
+	@Test
+	void testGetSalaryPercentiles_InvalidPercentile() {
+		assertThrows(InvalidRequestException.class,
+				() -> departmentService.getSalaryPercentiles("Finance", Arrays.asList(50d, 101d)));
+		verify(salaryIndex, never()).percentiles(any(), any());
+	}
+
+	@Test
+	void testGetSalaryPercentiles_IndexLoading() {
+		assertThrows(ServiceOverloadedException.class,
+				() -> departmentService.getSalaryPercentiles("Finance", Arrays.asList(50d)));
+	}
+
+	@Test
+	void testCountSalaries() {
+		when(salaryIndex.isReady()).thenReturn(true);
+		when(salaryIndex.count("Finance")).thenReturn(3);
+		when(salaryIndex.countBetween("Finance", 10000, Long.MAX_VALUE)).thenReturn(2);
+
+		SalaryRangeDto salaryRange = departmentService.countSalaries("Finance", BigDecimal.valueOf(100), null);
+
+		assertEquals(2, salaryRange.getEmployees());
+	}
+
+	@Test
+	void testCountSalaries_RecordNotFoundException() {
+		when(salaryIndex.isReady()).thenReturn(true);
+
+		assertThrows(RecordNotFoundException.class, () -> departmentService.countSalaries("Unknown", null, null));
+	}
+}
@@ -1,12 +1,14 @@
 package jp.co.axa.apidemo.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -14,23 +16,46 @@ import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Path;
+import javax.validation.Validator;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.context.MessageSource;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import jp.co.axa.apidemo.cache.CacheConfig;
+import jp.co.axa.apidemo.changes.EmployeeChangeLog;
 import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.exception.InvalidRequestException;
+import jp.co.axa.apidemo.exception.PreconditionFailedException;
 import jp.co.axa.apidemo.exception.RecordNotFoundException;
+import jp.co.axa.apidemo.model.EmployeeBatchResult;
+import jp.co.axa.apidemo.model.EmployeeBatchResult.RowStatus;
+import jp.co.axa.apidemo.model.EmployeeChange.ChangeType;
 import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.model.EmployeeSearchCriteria;
 import jp.co.axa.apidemo.repositories.EmployeeRepository;
 
 @SpringBootTest
@@ -42,6 +67,15 @@ class EmployeeServiceTest {
 	@Mock
 	private MessageSource messageSource;
 
+	@Mock
+	private Validator validator;
+
+	@Mock
+	private CacheManager cacheManager;
+
+	@Mock
+	private EmployeeChangeLog employeeChangeLog;
+
 	@InjectMocks
 	private EmployeeServiceImpl employeeService;
 
@@ -54,6 +88,7 @@ class EmployeeServiceTest {
 	@BeforeEach
 	public void setup() {
 		MockitoAnnotations.initMocks(this);
+		ReflectionTestUtils.setField(employeeService, "batchSize", 2);
 
 		employeeList = new ArrayList<>();
 		employeeList.add(Employee.builder().id(1L).name("Trideb Chapagai").department("Non-Life Insurance")
@@ -89,6 +124,60 @@ class EmployeeServiceTest {
 		assertEquals(0, employeeDtos.size());
 	}
 
+	@Test
+	void testRetrieveEmployees_KeysetPage() {
+		when(employeeRepository.findPageAfter(0L, PageRequest.of(0, 2))).thenReturn(Arrays.asList(employeeDto));
+
+		List<EmployeeDto> employeeDtos = employeeService.retrieveEmployees(null, 2);
+
+		assertEquals(1, employeeDtos.size());
+		verify(employeeRepository, times(1)).findPageAfter(0L, PageRequest.of(0, 2));
+		verify(employeeRepository, never()).findAll();
+	}
+
+	@Test
+	void testSearchEmployees() {
+		EmployeeSearchCriteria criteria = new EmployeeSearchCriteria();
+		criteria.setDepartment("Non-Life Insurance");
+		when(employeeRepository.search(criteria, 5L, 10)).thenReturn(Arrays.asList(employeeDto));
+
+		List<EmployeeDto> employeeDtos = employeeService.searchEmployees(criteria, 5L, 10);
+
+		assertEquals(1, employeeDtos.size());
+		verify(employeeRepository, times(1)).search(criteria, 5L, 10);
+		verify(employeeRepository, never()).findAll();
+	}
+
+	@Test
+	void testRetrieveEmployeeFields() {
+		List<Map<String, Object>> rows = Collections.singletonList(Collections.singletonMap("id", 1L));
+		when(employeeRepository.findFields(Arrays.asList("id", "name", "salary"), 5L, 10)).thenReturn(rows);
+
+		assertEquals(rows, employeeService.retrieveEmployeeFields(Arrays.asList("salary", " name", ""), 5L, 10));
+	}
+
+	@Test
+	void testRetrieveEmployeeFields_InvalidRequestException() {
+		when(messageSource.getMessage(eq("error.employee.fields.invalid"), any(), eq(Locale.ENGLISH)))
+				.thenReturn("Unknown employee fields");
+
+		assertThrows(InvalidRequestException.class,
+				() -> employeeService.retrieveEmployeeFields(Arrays.asList("name", "password"), null, null));
+
+		verify(employeeRepository, never()).findFields(any(), any(), any());
+	}
+
+	@Test
+	void testStreamEmployees() {
+		when(employeeRepository.streamAll()).thenReturn(Stream.of(employeeDto, employeeDto));
+
+		List<EmployeeDto> streamed = new ArrayList<>();
+		employeeService.streamEmployees(streamed::add);
+
+		assertEquals(2, streamed.size());
+		verify(employeeRepository, times(1)).streamAll();
+	}
+
 	@Test
 	void testGetEmployee() {
 		Long employeeId = 1L;
@@ -104,7 +193,56 @@ class EmployeeServiceTest {
 		assertEquals(BigDecimal.valueOf(5000), employeeDto.getSalary());
 
 		verify(employeeRepository, times(1)).findById(employeeId);
-		verify(messageSource, times(1)).getMessage(eq("error.employee.notfound"), isNull(), eq(Locale.ENGLISH));
+		verify(messageSource, never()).getMessage(eq("error.employee.notfound"), isNull(), eq(Locale.ENGLISH));
+	}
+
+	@Test
+	void testGetEmployee_MissingEmployeeCached() {
+		Long employeeId = 99L;
+		CaffeineCache missingEmployees = new CaffeineCache(CacheConfig.MISSING_EMPLOYEE, Caffeine.newBuilder().build());
+		when(cacheManager.getCache(CacheConfig.MISSING_EMPLOYEE)).thenReturn(missingEmployees);
+		when(messageSource.getMessage(eq("error.employee.notfound"), isNull(), eq(Locale.ENGLISH)))
+				.thenReturn("Employee not found");
+		when(employeeRepository.findById(employeeId)).thenReturn(Optional.empty());
+
+		assertThrows(RecordNotFoundException.class, () -> employeeService.getEmployee(employeeId));
+		assertThrows(RecordNotFoundException.class, () -> employeeService.getEmployee(employeeId));
+
+		verify(employeeRepository, times(1)).findById(employeeId);
+	}
+
+	@Test
+	void testGetEmployees() {
+		EmployeeDto cachedDto = EmployeeDto.builder().id(2L).name("John Prange").build();
+		CaffeineCache cache = new CaffeineCache(CacheConfig.EMPLOYEE, Caffeine.newBuilder().build());
+		cache.put(2L, cachedDto);
+		CaffeineCache missingEmployees = new CaffeineCache(CacheConfig.MISSING_EMPLOYEE, Caffeine.newBuilder().build());
+		missingEmployees.put(5L, Boolean.TRUE);
+		when(cacheManager.getCache(CacheConfig.EMPLOYEE)).thenReturn(cache);
+		when(cacheManager.getCache(CacheConfig.MISSING_EMPLOYEE)).thenReturn(missingEmployees);
+		when(employeeRepository.findAllById(Arrays.asList(1L, 9L)))
+				.thenReturn(Collections.singletonList(employeeList.get(0)));
+
+		List<EmployeeDto> employeeDtos = employeeService.getEmployees(Arrays.asList(2L, 1L, 9L, 5L, 2L));
+
+		assertEquals(2, employeeDtos.size());
+		assertEquals(cachedDto, employeeDtos.get(0));
+		assertEquals(Long.valueOf(1L), employeeDtos.get(1).getId());
+		assertNotNull(cache.get(1L));
+		assertNotNull(missingEmployees.get(9L));
+		verify(employeeRepository, times(1)).findAllById(anyList());
+	}
+
+	@Test
+	void testSaveEmployee_ForgetsMissingEmployee() {
+		CaffeineCache missingEmployees = new CaffeineCache(CacheConfig.MISSING_EMPLOYEE, Caffeine.newBuilder().build());
+		missingEmployees.put(1L, Boolean.TRUE);
+		when(cacheManager.getCache(CacheConfig.MISSING_EMPLOYEE)).thenReturn(missingEmployees);
+		when(employeeRepository.save(any(Employee.class))).thenReturn(employeeList.get(0));
+
+		employeeService.saveEmployee(employeeDto);
+
+		assertNull(missingEmployees.get(1L));
 	}
 
 	@Test
@@ -113,34 +251,115 @@ class EmployeeServiceTest {
 				.salary(BigDecimal.valueOf(5000)).build();
 		when(employeeRepository.save(any(Employee.class))).thenReturn(employee);
 
-		employeeService.saveEmployee(employeeDto);
+		EmployeeDto savedDto = employeeService.saveEmployee(employeeDto);
 
 		verify(employeeRepository, times(1)).save(any(Employee.class));
+		verify(employeeChangeLog, times(1)).append(ChangeType.CREATED, 1L, savedDto);
+		assertEquals(Long.valueOf(1L), savedDto.getId());
+		assertEquals(BigDecimal.valueOf(5000), savedDto.getSalary());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testSaveEmployees() {
+		EmployeeDto invalidDto = EmployeeDto.builder().name("").department("Finance").salary(BigDecimal.TEN).build();
+		ConstraintViolation<EmployeeDto> violation = mock(ConstraintViolation.class);
+		Path path = mock(Path.class);
+		when(path.toString()).thenReturn("name");
+		when(violation.getPropertyPath()).thenReturn(path);
+		when(violation.getMessage()).thenReturn("must not be empty");
+		when(validator.validate(invalidDto)).thenReturn(Collections.singleton(violation));
+		when(employeeRepository.batchInsert(anyList())).thenReturn(Arrays.asList(11L, 12L), Arrays.asList(13L));
+
+		EmployeeBatchResult result = employeeService
+				.saveEmployees(Arrays.asList(employeeDto, invalidDto, employeeDto, employeeDto).iterator());
+
+		assertEquals(4, result.getReceived());
+		assertEquals(3, result.getInserted());
+		assertEquals(1, result.getRejected());
+		assertEquals(Long.valueOf(11L), result.getRows().get(0).getId());
+		assertEquals(RowStatus.REJECTED, result.getRows().get(1).getStatus());
+		assertEquals(Collections.singletonList("name must not be empty"), result.getRows().get(1).getErrors());
+		assertNull(result.getRows().get(1).getId());
+		assertEquals(Long.valueOf(13L), result.getRows().get(3).getId());
+		verify(employeeRepository, times(2)).batchInsert(anyList());
 	}
 
 	@Test
 	void testDeleteEmployee() {
 		Long employeeId = 1L;
-		doNothing().when(employeeRepository).deleteById(employeeId);
+		when(employeeRepository.deleteEmployeeById(employeeId)).thenReturn(1);
 
 		employeeService.deleteEmployee(employeeId);
 
-		verify(employeeRepository, times(1)).deleteById(employeeId);
+		verify(employeeRepository, times(1)).deleteEmployeeById(employeeId);
+		verify(employeeRepository, never()).findById(any());
+		verify(employeeChangeLog, times(1)).append(ChangeType.DELETED, employeeId, null);
 	}
 
 	@Test
 	void testDeleteEmployee_RecordNotFoundException() {
 		Long employeeId = 1L;
-		doThrow(EmptyResultDataAccessException.class).when(employeeRepository).deleteById(employeeId);
+		when(employeeRepository.deleteEmployeeById(employeeId)).thenReturn(0);
 		when(messageSource.getMessage(eq("error.employee.notfound.delete"), isNull(), eq(Locale.ENGLISH)))
 				.thenReturn("Employee not found for deletion");
 
 		assertThrows(RecordNotFoundException.class, () -> employeeService.deleteEmployee(employeeId));
 
-		verify(employeeRepository, times(1)).deleteById(employeeId);
+		verify(employeeRepository, times(1)).deleteEmployeeById(employeeId);
+		verify(employeeChangeLog, never()).append(any(), any(), any());
 		verify(messageSource, times(1)).getMessage(eq("error.employee.notfound.delete"), isNull(), eq(Locale.ENGLISH));
 	}
 
+	@Test
+	void testPreloadEmployees() {
+		ReflectionTestUtils.setField(employeeService, "batchSize", 1);
+		CaffeineCache cache = new CaffeineCache("employee", Caffeine.newBuilder().build());
+		when(cacheManager.getCache("employee")).thenReturn(cache);
+		when(employeeRepository.findAllById(Collections.singletonList(1L)))
+				.thenReturn(Collections.singletonList(employeeList.get(0)));
+		when(employeeRepository.findAllById(Collections.singletonList(3L))).thenReturn(Collections.emptyList());
+
+		assertEquals(1, employeeService.preloadEmployees(Arrays.asList(1L, 3L)));
+
+		assertEquals("Trideb Chapagai", ((EmployeeDto) cache.get(1L).get()).getName());
+		verify(employeeRepository, times(2)).findAllById(anyList());
+	}
+
+	@Test
+	void testPreloadEmployees_KeepsEntryCachedMeanwhile() {
+		EmployeeDto updatedDto = EmployeeDto.builder().id(1L).name("Updated").version(5L).build();
+		CaffeineCache cache = new CaffeineCache("employee", Caffeine.newBuilder().build());
+		when(cacheManager.getCache("employee")).thenReturn(cache);
+		when(employeeRepository.findAllById(Collections.singletonList(1L))).thenAnswer(invocation -> {
+			// updated and cached while the older row is read
+			cache.put(1L, updatedDto);
+			return Collections.singletonList(employeeList.get(0));
+		});
+
+		assertEquals(1, employeeService.preloadEmployees(Collections.singletonList(1L)));
+
+		assertEquals(updatedDto, cache.get(1L).get());
+	}
+
+	@Test
+	void testDeleteEmployees() {
+		List<Long> employeeIds = Arrays.asList(1L, 2L, 3L);
+		CaffeineCache cache = new CaffeineCache("employee", Caffeine.newBuilder().build());
+		cache.put(1L, employeeDto);
+		cache.put(4L, employeeDto);
+		when(cacheManager.getCache("employee")).thenReturn(cache);
+		when(employeeRepository.deleteAllByIdIn(employeeIds)).thenReturn(Arrays.asList(1L, 3L));
+
+		assertEquals(2, employeeService.deleteEmployees(employeeIds));
+
+		assertNull(cache.get(1L));
+		assertNotNull(cache.get(4L));
+		verify(employeeChangeLog, times(1)).append(ChangeType.DELETED, 1L, null);
+		verify(employeeChangeLog, times(1)).append(ChangeType.DELETED, 3L, null);
+		verify(employeeChangeLog, never()).append(ChangeType.DELETED, 2L, null);
+	}
+
 	@Test
 	void testUpdateEmployee() {
 		// Arrange
@@ -151,16 +370,19 @@ class EmployeeServiceTest {
 				.salary(BigDecimal.valueOf(1000)).build();
 
 		when(employeeRepository.findById(employeeId)).thenReturn(Optional.of(employee));
+		when(employeeRepository.saveAndFlush(employee)).thenReturn(employee);
 
 		// Act
-		employeeService.updateEmployee(employeeDto, employeeId);
+		EmployeeDto updatedDto = employeeService.updateEmployee(employeeDto, employeeId);
 
 		// Assert
 		verify(employeeRepository, times(1)).findById(employeeId);
-		verify(employeeRepository, times(1)).save(employee);
+		verify(employeeRepository, times(1)).saveAndFlush(employee);
 		assertEquals("Trideb Chapagai", employee.getName());
 		assertEquals("Non-Life Insurance", employee.getDepartment());
 		assertEquals(BigDecimal.valueOf(5000), employee.getSalary());
+		assertEquals(employeeId, updatedDto.getId());
+		assertEquals("Trideb Chapagai", updatedDto.getName());
 	}
 
 	@Test
@@ -176,7 +398,153 @@ class EmployeeServiceTest {
 		assertThrows(RecordNotFoundException.class, () -> employeeService.updateEmployee(employeeDto, employeeId));
 
 		verify(employeeRepository, times(1)).findById(employeeId);
-		verify(employeeRepository, never()).save(any());
+		verify(employeeRepository, never()).saveAndFlush(any());
+	}
+
+	@Test
+	void testPatchEmployee() {
+		Long employeeId = 1L;
+		EmployeeDto changes = EmployeeDto.builder().salary(BigDecimal.valueOf(7000)).build();
+		CaffeineCache cache = new CaffeineCache("employee", Caffeine.newBuilder().build());
+		cache.put(employeeId, EmployeeDto.builder().id(1L).name("Trideb Chapagai").department("Non-Life Insurance")
+				.salary(BigDecimal.TEN).version(3L).build());
+		when(cacheManager.getCache("employee")).thenReturn(cache);
+		EmployeeDto conditional = EmployeeDto.builder().salary(BigDecimal.valueOf(7000)).version(3L).build();
+		when(employeeRepository.updatePartially(employeeId, conditional)).thenReturn(4L);
+
+		assertEquals(Long.valueOf(4L), employeeService.patchEmployee(changes, employeeId));
+
+		verify(employeeRepository, times(1)).updatePartially(any(), any());
+		verify(employeeRepository, never()).findById(any());
+		EmployeeDto cached = (EmployeeDto) cache.get(employeeId).get();
+		assertEquals(BigDecimal.valueOf(7000), cached.getSalary());
+		assertEquals("Trideb Chapagai", cached.getName());
+		assertEquals(Long.valueOf(4), cached.getVersion());
+	}
+
+	@Test
+	void testUpdateEmployees() {
+		Map<Long, EmployeeDto> updates = new LinkedHashMap<>();
+		updates.put(1L, employeeDto);
+		updates.put(3L, employeeDto);
+		CaffeineCache cache = new CaffeineCache("employee", Caffeine.newBuilder().build());
+		when(cacheManager.getCache(CacheConfig.EMPLOYEE)).thenReturn(cache);
+		when(employeeRepository.updateAll(updates)).thenReturn(Collections.singletonList(employeeList.get(0)));
+
+		Map<Long, EmployeeDto> updated = employeeService.updateEmployees(updates);
+
+		assertEquals(Collections.singleton(1L), updated.keySet());
+		assertEquals(updated.get(1L), cache.get(1L).get());
+		assertNull(cache.get(3L));
+		verify(employeeChangeLog, times(1)).append(ChangeType.UPDATED, 1L, updated.get(1L));
+	}
+
+	@Test
+	void testUpdateEmployees_KeepsLaterCachedVersion() {
+		Employee committed = Employee.builder().id(1L).name("Group").department("Finance")
+				.salary(BigDecimal.valueOf(100)).version(2L).build();
+		EmployeeDto later = EmployeeDto.builder().id(1L).name("Later").department("Finance")
+				.salary(BigDecimal.valueOf(200)).version(3L).build();
+		CaffeineCache cache = new CaffeineCache("employee", Caffeine.newBuilder().build());
+		cache.put(1L, later);
+		when(cacheManager.getCache(CacheConfig.EMPLOYEE)).thenReturn(cache);
+		when(employeeRepository.updateAll(any())).thenReturn(Collections.singletonList(committed));
+
+		employeeService.updateEmployees(Collections.singletonMap(1L, employeeDto));
+
+		assertEquals(later, cache.get(1L).get());
+	}
+
+	@Test
+	void testUpdateEmployee_WritesThroughUnlessOlder() {
+		Employee employee = Employee.builder().id(1L).name("Existing Employee").department("Finance")
+				.salary(BigDecimal.valueOf(1000)).version(4L).build();
+		CaffeineCache cache = new CaffeineCache("employee", Caffeine.newBuilder().build());
+		cache.put(1L, EmployeeDto.builder().id(1L).name("Older").version(3L).build());
+		when(cacheManager.getCache(CacheConfig.EMPLOYEE)).thenReturn(cache);
+		when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+		when(employeeRepository.saveAndFlush(employee)).thenReturn(employee);
+
+		EmployeeDto updatedDto = employeeService.updateEmployee(EmployeeDto.builder().name("Trideb Chapagai")
+				.department("Finance").salary(BigDecimal.valueOf(5000)).build(), 1L);
+
+		assertEquals(updatedDto, cache.get(1L).get());
+		cache.put(1L, EmployeeDto.builder().id(1L).name("Later").version(5L).build());
+		employeeService.updateEmployee(EmployeeDto.builder().name("Trideb Chapagai").department("Finance")
+				.salary(BigDecimal.valueOf(6000)).build(), 1L);
+		assertEquals("Later", ((EmployeeDto) cache.get(1L).get()).getName());
+	}
+
+	@Test
+	void testPatchEmployee_RecordNotFoundException() {
+		Long employeeId = 1L;
+		EmployeeDto changes = EmployeeDto.builder().name("Renamed").build();
+		when(employeeRepository.updatePartially(employeeId, changes)).thenReturn(null);
+
+		assertThrows(RecordNotFoundException.class, () -> employeeService.patchEmployee(changes, employeeId));
+
+		verify(employeeRepository, never()).findById(any());
+		verify(employeeChangeLog, never()).append(any(), any(), any());
+	}
+
+	@Test
+	void testPatchEmployee_OutdatedCachedVersion() {
+		Long employeeId = 1L;
+		EmployeeDto changes = EmployeeDto.builder().name("Renamed").build();
+		CaffeineCache cache = new CaffeineCache("employee", Caffeine.newBuilder().build());
+		cache.put(employeeId, EmployeeDto.builder().id(1L).name("Trideb Chapagai").department("Non-Life Insurance")
+				.salary(BigDecimal.TEN).version(3L).build());
+		when(cacheManager.getCache("employee")).thenReturn(cache);
+		EmployeeDto conditional = EmployeeDto.builder().name("Renamed").version(3L).build();
+		when(employeeRepository.updatePartially(employeeId, conditional)).thenReturn(null);
+		when(employeeRepository.updatePartially(employeeId, changes)).thenReturn(6L);
+
+		assertEquals(Long.valueOf(6L), employeeService.patchEmployee(changes, employeeId));
+
+		verify(employeeRepository, times(1)).updatePartially(employeeId, conditional);
+		verify(employeeRepository, times(1)).updatePartially(employeeId, changes);
+		assertEquals(Long.valueOf(6L), ((EmployeeDto) cache.get(employeeId).get()).getVersion());
+	}
+
+	@Test
+	void testUpdateEmployee_StaleVersion() {
+		Long employeeId = 1L;
+		EmployeeDto employeeDto = EmployeeDto.builder().name("Trideb Chapagai").department("Non-Life Insurance")
+				.salary(BigDecimal.valueOf(5000)).version(2L).build();
+		Employee employee = Employee.builder().id(1L).name("Existing Employee").department("Existing Department")
+				.salary(BigDecimal.valueOf(1000)).version(3L).build();
+		when(employeeRepository.findById(employeeId)).thenReturn(Optional.of(employee));
+
+		assertThrows(ObjectOptimisticLockingFailureException.class,
+				() -> employeeService.updateEmployee(employeeDto, employeeId));
+
+		verify(employeeRepository, never()).saveAndFlush(any());
+	}
+
+	@Test
+	void testDeleteEmployee_IfMatch() {
+		when(employeeRepository.deleteByIdAndVersion(1L, 3L)).thenReturn(1);
+
+		employeeService.deleteEmployee(1L, 3L);
+
+		verify(employeeRepository, times(1)).deleteByIdAndVersion(1L, 3L);
+		verify(employeeRepository, never()).existsById(any());
+	}
+
+	@Test
+	void testDeleteEmployee_PreconditionFailedException() {
+		when(employeeRepository.deleteByIdAndVersion(1L, 3L)).thenReturn(0);
+		when(employeeRepository.existsById(1L)).thenReturn(true);
+
+		assertThrows(PreconditionFailedException.class, () -> employeeService.deleteEmployee(1L, 3L));
+	}
+
+	@Test
+	void testDeleteEmployee_IfMatch_RecordNotFoundException() {
+		when(employeeRepository.deleteByIdAndVersion(1L, 3L)).thenReturn(0);
+		when(employeeRepository.existsById(1L)).thenReturn(false);
+
+		assertThrows(RecordNotFoundException.class, () -> employeeService.deleteEmployee(1L, 3L));
 	}
 
 }
@@ -0,0 +1,96 @@
+package jp.co.axa.apidemo.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jp.co.axa.apidemo.entities.Employee;
+
+class EmployeeSnapshotWriterTest {
+
+	private Path file;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		file = Files.createTempFile("employees", ".snapshot");
+		Files.delete(file);
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	void testWriteAndRead_AcrossBlocks() throws IOException {
+		try (EmployeeSnapshotWriter writer = new EmployeeSnapshotWriter(file, 2)) {
+			writer.write(Employee.builder().id(1L).name("Trideb Chapagai").salary(new BigDecimal("123.45"))
+					.department("Finance").version(3L).build());
+			writer.write(Employee.builder().id(2L).name("名前").salary(BigDecimal.TEN).department("Life").version(0L)
+					.build());
+			writer.write(Employee.builder().id(5L).department("Finance").build());
+		}
+
+		List<Employee> employees = new ArrayList<>();
+		assertEquals(3, EmployeeSnapshotReader.read(file, employees::add));
+
+		assertEquals(Long.valueOf(1L), employees.get(0).getId());
+		assertEquals("Trideb Chapagai", employees.get(0).getName());
+		assertEquals(new BigDecimal("123.45"), employees.get(0).getSalary());
+		assertEquals("Finance", employees.get(0).getDepartment());
+		assertEquals(Long.valueOf(3L), employees.get(0).getVersion());
+		assertEquals("名前", employees.get(1).getName());
+		assertEquals(new BigDecimal("10.00"), employees.get(1).getSalary());
+		assertEquals("Life", employees.get(1).getDepartment());
+		assertEquals(Long.valueOf(5L), employees.get(2).getId());
+		assertNull(employees.get(2).getName());
+		assertNull(employees.get(2).getSalary());
+		assertEquals("Finance", employees.get(2).getDepartment());
+		assertNull(employees.get(2).getVersion());
+	}
+
+	@Test
+	void testRead_TruncatedFile() throws IOException {
+		try (EmployeeSnapshotWriter writer = new EmployeeSnapshotWriter(file, 2)) {
+			writer.write(Employee.builder().id(1L).name("Trideb Chapagai").department("Finance").build());
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 1);
+		}
+
+		assertThrows(IOException.class, () -> EmployeeSnapshotReader.validate(file));
+		assertThrows(IOException.class, () -> EmployeeSnapshotReader.read(file, employee -> {
+		}));
+	}
+
+	@Test
+	void testValidate_CorruptedBlock() throws IOException {
+		try (EmployeeSnapshotWriter writer = new EmployeeSnapshotWriter(file, 2)) {
+			writer.write(Employee.builder().id(1L).name("Trideb Chapagai").department("Finance").build());
+		}
+		assertEquals(1, EmployeeSnapshotReader.validate(file));
+		// the department code of the only row, past the block header and the three long columns
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(4).putInt(0, 7), EmployeeSnapshotWriter.HEADER_BYTES
+					+ EmployeeSnapshotWriter.BLOCK_HEADER_BYTES + 3 * 8);
+		}
+
+		IOException exception = assertThrows(IOException.class, () -> EmployeeSnapshotReader.validate(file));
+		assertTrue(exception.getMessage().contains("checksum"));
+	}
+}
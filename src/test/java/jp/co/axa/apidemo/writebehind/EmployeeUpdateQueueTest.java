@@ -0,0 +1,194 @@
+package jp.co.axa.apidemo.writebehind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.MessageSource;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jp.co.axa.apidemo.exception.ServiceOverloadedException;
+import jp.co.axa.apidemo.model.EmployeeDto;
+import jp.co.axa.apidemo.services.EmployeeService;
+
+class EmployeeUpdateQueueTest {
+
+	@Mock
+	private EmployeeService employeeService;
+
+	@Mock
+	private MessageSource messageSource;
+
+	@Mock
+	private ObjectProvider<MeterRegistry> meterRegistry;
+
+	@InjectMocks
+	private EmployeeUpdateQueue employeeUpdateQueue;
+
+	@BeforeEach
+	public void setup() {
+		MockitoAnnotations.initMocks(this);
+		ReflectionTestUtils.setField(employeeUpdateQueue, "enabled", true);
+		ReflectionTestUtils.setField(employeeUpdateQueue, "capacity", 2);
+		ReflectionTestUtils.setField(employeeUpdateQueue, "batchSize", 10);
+		ReflectionTestUtils.setField(employeeUpdateQueue, "maxDelay", Duration.ofMillis(200));
+		ReflectionTestUtils.setField(employeeUpdateQueue, "ackTimeout", Duration.ofSeconds(5));
+		ReflectionTestUtils.setField(employeeUpdateQueue, "retries", 3);
+		ReflectionTestUtils.setField(employeeUpdateQueue, "retryBackoff", Duration.ofMillis(10));
+	}
+
+	@AfterEach
+	public void tearDown() throws InterruptedException {
+		employeeUpdateQueue.stop();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void testEnqueue_CoalescesAndCommitsInOneGroup() throws Exception {
+		EmployeeDto first = employee("First", 100);
+		EmployeeDto second = employee("Second", 200);
+		EmployeeDto other = employee("Other", 300);
+		Map<Long, EmployeeDto> committed = new LinkedHashMap<>();
+		committed.put(1L, EmployeeDto.builder().id(1L).name("Second").version(1L).build());
+		committed.put(2L, EmployeeDto.builder().id(2L).name("Other").version(1L).build());
+		when(employeeService.updateEmployees(anyMap())).thenReturn(committed);
+		employeeUpdateQueue.start();
+
+		CompletableFuture<EmployeeDto> firstAck = employeeUpdateQueue.enqueue(1L, first);
+		CompletableFuture<EmployeeDto> secondAck = employeeUpdateQueue.enqueue(1L, second);
+		employeeUpdateQueue.enqueue(2L, other);
+
+		assertSame(firstAck, secondAck);
+		assertEquals(Long.valueOf(1), employeeUpdateQueue.awaitCommit(firstAck).getVersion());
+		ArgumentCaptor<Map<Long, EmployeeDto>> group = ArgumentCaptor.forClass(Map.class);
+		verify(employeeService, times(1)).updateEmployees(group.capture());
+		assertEquals(2, group.getValue().size());
+		assertSame(second, group.getValue().get(1L));
+	}
+
+	@Test
+	void testEnqueue_QueueFull() {
+		employeeUpdateQueue.start();
+		employeeUpdateQueue.enqueue(1L, employee("First", 100));
+		employeeUpdateQueue.enqueue(2L, employee("Second", 200));
+
+		assertThrows(ServiceOverloadedException.class, () -> employeeUpdateQueue.enqueue(3L, employee("Third", 300)));
+		// an employee already queued is still coalesced
+		employeeUpdateQueue.enqueue(2L, employee("Second", 250));
+	}
+
+	@Test
+	void testFlush_FailedGroupRetriedOneByOne() throws Exception {
+		EmployeeDto updated = EmployeeDto.builder().id(1L).version(2L).build();
+		when(employeeService.updateEmployees(anyMap())).thenAnswer(invocation -> {
+			Map<Long, EmployeeDto> employeeDtos = invocation.getArgument(0);
+			if (employeeDtos.size() > 1) {
+				throw new IllegalStateException("group failed");
+			}
+			if (employeeDtos.containsKey(2L)) {
+				throw new IllegalArgumentException("bad salary");
+			}
+			return Collections.singletonMap(1L, updated);
+		});
+		employeeUpdateQueue.start();
+
+		CompletableFuture<EmployeeDto> firstAck = employeeUpdateQueue.enqueue(1L, employee("First", 100));
+		CompletableFuture<EmployeeDto> secondAck = employeeUpdateQueue.enqueue(2L, employee("Second", 200));
+
+		assertSame(updated, firstAck.get(1, TimeUnit.SECONDS));
+		assertThrows(IllegalArgumentException.class, () -> employeeUpdateQueue.awaitCommit(secondAck));
+		// the retries do not go through the limited single update
+		verify(employeeService, never()).updateEmployee(any(EmployeeDto.class), anyLong());
+	}
+
+	@Test
+	void testFlush_TransientFailureRetriedWithBackoff() throws Exception {
+		EmployeeDto updated = EmployeeDto.builder().id(1L).version(2L).build();
+		when(employeeService.updateEmployees(anyMap())).thenThrow(new QueryTimeoutException("timeout"))
+				.thenThrow(new QueryTimeoutException("timeout"))
+				.thenReturn(Collections.singletonMap(1L, updated));
+		employeeUpdateQueue.start();
+
+		CompletableFuture<EmployeeDto> ack = employeeUpdateQueue.enqueue(1L, employee("First", 100));
+
+		assertSame(updated, ack.get(1, TimeUnit.SECONDS));
+		verify(employeeService, times(3)).updateEmployees(anyMap());
+	}
+
+	@Test
+	void testFlush_FlusherSurvivesUnexpectedFailure() throws Exception {
+		when(employeeService.updateEmployees(anyMap())).thenReturn(Collections.emptyMap())
+				.thenReturn(Collections.singletonMap(2L, EmployeeDto.builder().id(2L).version(1L).build()));
+		when(messageSource.getMessage(any(), any(), any(Locale.class)))
+				.thenThrow(new NoSuchMessageException("error.employee.notfound.update"));
+		employeeUpdateQueue.start();
+
+		CompletableFuture<EmployeeDto> firstAck = employeeUpdateQueue.enqueue(1L, employee("First", 100));
+		assertThrows(NoSuchMessageException.class, () -> employeeUpdateQueue.awaitCommit(firstAck));
+		CompletableFuture<EmployeeDto> secondAck = employeeUpdateQueue.enqueue(2L, employee("Second", 200));
+
+		assertEquals(Long.valueOf(1), employeeUpdateQueue.awaitCommit(secondAck).getVersion());
+	}
+
+	@Test
+	void testDrain_CommitsQueuedUpdateOfTheEmployee() throws Exception {
+		ReflectionTestUtils.setField(employeeUpdateQueue, "maxDelay", Duration.ofMinutes(1));
+		EmployeeDto updated = EmployeeDto.builder().id(1L).version(1L).build();
+		when(employeeService.updateEmployees(anyMap())).thenReturn(Collections.singletonMap(1L, updated));
+		employeeUpdateQueue.start();
+		CompletableFuture<EmployeeDto> ack = employeeUpdateQueue.enqueue(1L, employee("First", 100));
+		employeeUpdateQueue.enqueue(2L, employee("Second", 200));
+
+		employeeUpdateQueue.drain(1L);
+
+		assertSame(updated, ack.getNow(null));
+		assertEquals(1, employeeUpdateQueue.getPendingCount());
+		// nothing queued for the employee any more
+		employeeUpdateQueue.drain(1L);
+		verify(employeeService, times(1)).updateEmployees(anyMap());
+	}
+
+	@Test
+	void testStop_CommitsQueuedUpdates() throws Exception {
+		ReflectionTestUtils.setField(employeeUpdateQueue, "maxDelay", Duration.ofMinutes(1));
+		when(employeeService.updateEmployees(anyMap()))
+				.thenReturn(Collections.singletonMap(1L, EmployeeDto.builder().id(1L).version(1L).build()));
+		employeeUpdateQueue.start();
+		CompletableFuture<EmployeeDto> ack = employeeUpdateQueue.enqueue(1L, employee("First", 100));
+
+		employeeUpdateQueue.stop();
+
+		assertEquals(Long.valueOf(1), ack.getNow(null).getVersion());
+	}
+
+	private static EmployeeDto employee(String name, int salary) {
+		return EmployeeDto.builder().name(name).salary(BigDecimal.valueOf(salary)).department("IT").build();
+	}
+}